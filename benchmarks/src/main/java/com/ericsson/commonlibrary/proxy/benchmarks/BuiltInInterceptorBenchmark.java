@@ -0,0 +1,93 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.commonlibrary.proxy.Proxy;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Node;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Service;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.ServiceImpl;
+
+/**
+ * Cost of the built in interceptors: {@link Proxy#mdcLogging(Object, String, String)} per call and
+ * {@link Proxy#recursiveIntercept(Object, com.ericsson.commonlibrary.proxy.Interceptor)} when walking an object tree of
+ * some depth, where every returned object becomes a proxy.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BuiltInInterceptorBenchmark {
+
+    private Service mdcProxy;
+    private int value;
+
+    @State(Scope.Thread)
+    public static class Tree {
+
+        @Param({ "1", "5", "20" })
+        private int depth;
+
+        private Node root;
+
+        @Setup
+        public void setup(SelectedBackend backend) {
+            root = Proxy.recursiveIntercept(new Node(depth), Fixtures.PASS_THROUGH);
+        }
+    }
+
+    @Setup
+    public void setup(SelectedBackend backend) {
+        mdcProxy = Proxy.mdcLogging((Service) new ServiceImpl(), "benchmark", "mdc");
+    }
+
+    @Benchmark
+    public int mdcLogging() {
+        return mdcProxy.work(value++);
+    }
+
+    @Benchmark
+    public Node recursiveIntercept(Tree tree) {
+        Node node = tree.root;
+        for (int i = 0; i < tree.depth; i++) {
+            node = node.getChild();
+        }
+        return node;
+    }
+}
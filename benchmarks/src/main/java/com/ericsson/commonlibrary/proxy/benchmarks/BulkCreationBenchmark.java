@@ -0,0 +1,89 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.commonlibrary.proxy.Proxy;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Service;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.ServiceImpl;
+
+/**
+ * Cost of proxying a whole collection of objects, one {@link Proxy#intercept} call per object compared to
+ * {@link Proxy#interceptAll}.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BulkCreationBenchmark {
+
+    @Param({ "10000" })
+    private int size;
+
+    private List<Service> targets;
+
+    @Setup
+    public void setup(SelectedBackend backend) {
+        targets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            targets.add(new ServiceImpl());
+        }
+    }
+
+    @Benchmark
+    public List<Service> interceptEach() {
+        List<Service> proxies = new ArrayList<>(targets.size());
+        for (Service target : targets) {
+            proxies.add(Proxy.intercept(target, Fixtures.PASS_THROUGH));
+        }
+        return proxies;
+    }
+
+    @Benchmark
+    public List<Service> interceptAll() {
+        return Proxy.interceptAll(targets, Fixtures.PASS_THROUGH);
+    }
+
+    @Benchmark
+    public List<Service> interceptAllParallel() {
+        return Proxy.interceptAll(targets, Fixtures.PASS_THROUGH, true);
+    }
+}
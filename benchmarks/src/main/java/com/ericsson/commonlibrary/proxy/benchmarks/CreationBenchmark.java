@@ -0,0 +1,108 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.commonlibrary.proxy.Proxy;
+import com.ericsson.commonlibrary.proxy.ProxyBlueprint;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Other;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Service;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.ServiceImpl;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Work;
+
+/**
+ * Cost of creating a proxy object, for every way the {@link Proxy} api creates one. The proxy classes are generated
+ * during warmup so this measures the per object cost.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CreationBenchmark {
+
+    private final ServiceImpl target = new ServiceImpl();
+    private ProxyBlueprint<ServiceImpl> classBlueprint;
+    private ProxyBlueprint<Service> interfaceBlueprint;
+
+    @Setup
+    public void setup(SelectedBackend backend) {
+        // the other proxies are created by the benchmarks, after the backend is selected.
+        classBlueprint = Proxy.with(ServiceImpl.class).interceptAll(Fixtures.PASS_THROUGH).blueprint();
+        interfaceBlueprint = Proxy.with(Service.class).interceptAll(Fixtures.PASS_THROUGH).blueprint();
+    }
+
+    @Benchmark
+    public ServiceImpl plainNew() {
+        return new ServiceImpl();
+    }
+
+    @Benchmark
+    public Service withObject() {
+        return Proxy.with((Service) target).interceptAll(Fixtures.PASS_THROUGH).get();
+    }
+
+    @Benchmark
+    public ServiceImpl withClass() {
+        return Proxy.with(ServiceImpl.class).interceptAll(Fixtures.PASS_THROUGH).get();
+    }
+
+    @Benchmark
+    public ServiceImpl blueprintNewInstance() {
+        return classBlueprint.newInstance();
+    }
+
+    @Benchmark
+    public Service blueprintWrap() {
+        return interfaceBlueprint.wrap(target);
+    }
+
+    @Benchmark
+    public Service delegate() {
+        return Proxy.delegate(Service.class, new Other(), target);
+    }
+
+    @Benchmark
+    public Bean javaBean() {
+        return Proxy.javaBean(Bean.class);
+    }
+
+    @Benchmark
+    public Work changeInterface() {
+        return Proxy.changeInterface(Work.class, target);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.commonlibrary.proxy.Proxy;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Other;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Service;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.ServiceImpl;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Unrelated;
+
+/**
+ * Cost of {@link Proxy#delegate(Class, Object...)} when the called method is implemented by the last of a number of
+ * delegates, the others does not have the method.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DelegatorBenchmark {
+
+    @Param({ "1", "3", "8" })
+    private int delegates;
+
+    private Service proxy;
+    private int value;
+
+    @Setup
+    public void setup(SelectedBackend backend) {
+        Object[] delegateObjects = new Object[delegates];
+        for (int i = 0; i < delegates - 1; i++) {
+            delegateObjects[i] = i % 2 == 0 ? new Unrelated() : new Other();
+        }
+        delegateObjects[delegates - 1] = new ServiceImpl();
+        proxy = Proxy.delegate(Service.class, delegateObjects);
+    }
+
+    @Benchmark
+    public int lastDelegate() {
+        return proxy.work(value++);
+    }
+}
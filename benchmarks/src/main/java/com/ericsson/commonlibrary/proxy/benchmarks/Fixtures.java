@@ -0,0 +1,95 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy.benchmarks;
+
+import com.ericsson.commonlibrary.proxy.Interceptor;
+
+/**
+ * Small types that the benchmarks proxies.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+public final class Fixtures {
+
+    /**
+     * Interceptor that does nothing but continue the invocation.
+     */
+    public static final Interceptor PASS_THROUGH = invocation -> invocation.invoke();
+
+    private Fixtures() {
+        // hidden
+    }
+
+    public interface Service {
+        int work(int value);
+
+        int other(int value);
+    }
+
+    public static class ServiceImpl implements Service {
+
+        @Override
+        public int work(int value) {
+            return value + 1;
+        }
+
+        @Override
+        public int other(int value) {
+            return value - 1;
+        }
+    }
+
+    public interface Work {
+        int work(int value);
+    }
+
+    public static class Other {
+        public int other(int value) {
+            return value - 1;
+        }
+    }
+
+    public static class Unrelated {
+        public String unrelated() {
+            return "unrelated";
+        }
+    }
+
+    public static class Node {
+
+        private Node child;
+
+        public Node() {
+            // needed by proxies
+        }
+
+        Node(int depth) {
+            if (depth > 0) {
+                child = new Node(depth - 1);
+            }
+        }
+
+        public Node getChild() {
+            return child;
+        }
+    }
+}
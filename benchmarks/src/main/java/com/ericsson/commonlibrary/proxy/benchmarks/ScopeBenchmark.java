@@ -0,0 +1,107 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.commonlibrary.proxy.InterceptionScope;
+import com.ericsson.commonlibrary.proxy.Proxy;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Service;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.ServiceImpl;
+
+/**
+ * Cost of calling a proxy with an interceptor bound to a {@link InterceptionScope} from a thread outside the scope,
+ * with and without another thread inside the scope. Compared with a proxy without interceptors.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ScopeBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean otherThreadInScope;
+
+    private Service bareProxy;
+    private Service scopedProxy;
+    private CountDownLatch exitScope;
+    private int value;
+
+    @Setup
+    public void setup(SelectedBackend backend) throws InterruptedException {
+        InterceptionScope scope = Proxy.newInterceptionScope();
+        bareProxy = Proxy.with((Service) new ServiceImpl()).get();
+        scopedProxy = Proxy.with((Service) new ServiceImpl()).interceptAll(scope.bind(Fixtures.PASS_THROUGH)).get();
+        exitScope = new CountDownLatch(1);
+        if (otherThreadInScope) {
+            CountDownLatch inScope = new CountDownLatch(1);
+            Thread other = new Thread(() -> scope.run(() -> {
+                inScope.countDown();
+                awaitUninterruptibly(exitScope);
+            }));
+            other.setDaemon(true);
+            other.start();
+            inScope.await();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        exitScope.countDown();
+    }
+
+    @Benchmark
+    public int bareProxy() {
+        return bareProxy.work(value++);
+    }
+
+    @Benchmark
+    public int scopedProxy() {
+        return scopedProxy.work(value++);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
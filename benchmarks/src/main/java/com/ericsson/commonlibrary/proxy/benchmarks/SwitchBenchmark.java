@@ -0,0 +1,109 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.commonlibrary.proxy.InterceptorCategory;
+import com.ericsson.commonlibrary.proxy.Proxy;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.Service;
+import com.ericsson.commonlibrary.proxy.benchmarks.Fixtures.ServiceImpl;
+
+/**
+ * Cost of calling proxies with a categorized interceptor when its category is switched on and off, see
+ * {@link Proxy#setInterceptionEnabled(boolean)}. Compared with calling proxies without interceptors and a plain object.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SwitchBenchmark {
+
+    @Param({ "true", "false" })
+    private boolean enabled;
+
+    private Service plain;
+    private Service classProxy;
+    private Service objectProxy;
+    private Service bareClassProxy;
+    private Service bareObjectProxy;
+    private int value;
+
+    @Setup
+    public void setup(SelectedBackend backend) {
+        plain = new ServiceImpl();
+        classProxy = Proxy.with(ServiceImpl.class)
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, Fixtures.PASS_THROUGH)).get();
+        objectProxy = Proxy.with((Service) new ServiceImpl())
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, Fixtures.PASS_THROUGH)).get();
+        bareClassProxy = Proxy.with(ServiceImpl.class).get();
+        bareObjectProxy = Proxy.with((Service) new ServiceImpl()).get();
+        Proxy.setInterceptionEnabled(enabled);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Proxy.setInterceptionEnabled(true);
+    }
+
+    @Benchmark
+    public int plain() {
+        return plain.work(value++);
+    }
+
+    @Benchmark
+    public int classProxy() {
+        return classProxy.work(value++);
+    }
+
+    @Benchmark
+    public int objectProxy() {
+        return objectProxy.work(value++);
+    }
+
+    @Benchmark
+    public int bareClassProxy() {
+        return bareClassProxy.work(value++);
+    }
+
+    @Benchmark
+    public int bareObjectProxy() {
+        return bareObjectProxy.work(value++);
+    }
+}
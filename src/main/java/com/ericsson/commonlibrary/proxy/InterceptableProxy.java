@@ -25,7 +25,8 @@ import java.util.Deque;
 
 /**
  * Interface with methods an intercepteable proxy should implement to be able to add/remove {@link Interceptor}s
- * dynamically.
+ * dynamically. Interceptors can be added and removed from any thread, also while the proxy is being used by other
+ * threads.
  *
  * @author Elis Edlund (elis.edlund@ericsson.com)
  */
@@ -48,7 +49,8 @@ public interface InterceptableProxy {
     void removeInterceptor(Interceptor interceptor);
 
     /**
-     * @return a Deque of all {@link Interceptor}s in the proxy.
+     * @return a Deque of all {@link Interceptor}s in the proxy. The Deque is a snapshot, later changes to the proxy are
+     *         not reflected in it and changes to it does not affect the proxy.
      */
     Deque<Interceptor> getInterceptorList();
 }
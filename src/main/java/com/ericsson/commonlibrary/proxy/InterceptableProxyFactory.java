@@ -21,30 +21,38 @@ SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 */
 package com.ericsson.commonlibrary.proxy;
 
-import java.lang.reflect.Constructor;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.UnaryOperator;
 
-import org.objenesis.ObjenesisHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ericsson.commonlibrary.proxy.MethodDispatch.ControlMethod;
+
 import javassist.CannotCompileException;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtMethod;
 import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
 import javassist.NotFoundException;
 import javassist.util.proxy.MethodFilter;
 import javassist.util.proxy.MethodHandler;
-import javassist.util.proxy.ProxyFactory;
 import javassist.util.proxy.ProxyObject;
 
 /**
@@ -56,6 +64,21 @@ final class InterceptableProxyFactory {
 
     private static final Logger LOG = LoggerFactory.getLogger(InterceptableProxyFactory.class);
 
+    // The classes with the additional set methods of Proxy.javaBean, created once per java bean class.
+    private static final ClassValue<Class<?>> JAVA_BEAN_CLASSES = new ClassValue<Class<?>>() {
+
+        @Override
+        protected Class<?> computeValue(Class<?> javaBean) {
+            return addAdditionalSetMethodsToClass(javaBean, null);
+        }
+    };
+
+    // One class pool per class loader of the java beans. The default pool is never emptied, and keeps the classes of
+    // all class loaders it has seen.
+    private static final Map<ClassLoader, ClassPool> CLASS_POOLS = new WeakHashMap<>();
+
+    private static volatile ProxyBackend defaultBackend = backendOf(System.getProperty(ProxyBackend.SYSTEM_PROPERTY));
+
     private enum ProxyType {
         OBJECT, INTERFACE, CLASS
     }
@@ -72,89 +95,338 @@ final class InterceptableProxyFactory {
         }
     };
 
-    private final ProxyFactory factory = new ProxyFactory();
     private final ProxyType type;
+    private final ProxyBackend backend;
+    private Class<?> superclass = null;
+    private Class<?>[] interfaces = new Class<?>[0];
     private Object[] constructorArgs = null;
 
     InterceptableProxyFactory(ProxyType type) {
+        this(type, defaultBackend);
+    }
+
+    InterceptableProxyFactory(ProxyType type, ProxyBackend backend) {
         this.type = type;
-        factory.setFilter(METHOD_FILTER);
+        this.backend = Objects.requireNonNull(backend);
+    }
+
+    static ProxyBackend getDefaultBackend() {
+        return defaultBackend;
+    }
+
+    static void setDefaultBackend(ProxyBackend backend) {
+        defaultBackend = Objects.requireNonNull(backend);
+    }
+
+    private static ProxyBackend backendOf(String name) {
+        if (name == null) {
+            return ProxyBackend.JAVASSIST;
+        }
+        try {
+            return ProxyBackend.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Unknown proxy backend: {}={}, using: {}", ProxyBackend.SYSTEM_PROPERTY, name,
+                    ProxyBackend.JAVASSIST, e);
+            return ProxyBackend.JAVASSIST;
+        }
     }
 
     <T> T build() {
+        return build(InterceptorChain.EMPTY);
+    }
+
+    /**
+     * @param chain
+     *            the interceptors the proxy starts with, instead of adding them one by one afterwards.
+     *
+     * @return a new proxy.
+     */
+    <T> T build(InterceptorChain chain) {
+        return build(type, createdProxyClass(), chain);
+    }
+
+    /**
+     * Creates a proxy of an already resolved proxy class, see {@link ProxyBlueprint}.
+     *
+     * @param proxyClass
+     *            the proxy class of this builder.
+     * @param chain
+     *            the interceptors the proxy starts with.
+     *
+     * @return a new proxy.
+     */
+    <T> T build(ProxyClass proxyClass, InterceptorChain chain) {
+        return build(type, proxyClass, chain);
+    }
+
+    /**
+     * Creates a proxy that delegates to a target object, created without a constructor unless it's an interface proxy.
+     *
+     * @param target
+     *            the object that the proxy delegates to after the interceptors of the chain.
+     * @param proxyClass
+     *            the proxy class of this builder.
+     * @param chain
+     *            the interceptors the proxy starts with.
+     *
+     * @return a new proxy.
+     */
+    <T> T buildDelegatingTo(Object target, ProxyClass proxyClass, InterceptorChain chain) {
+        return build(wrappingType(), proxyClass, chain.then(new InterceptorDelegator(target)), null);
+    }
+
+    /**
+     * Creates a proxy that shares its chain with other proxies and delegates to a target object with
+     * {@link InterceptorDelegator#WRAPPED}. The proxy only refers to the chain and the target, see
+     * {@link ProxyBlueprint}.
+     *
+     * @param target
+     *            the object that the proxy wraps.
+     * @param proxyClass
+     *            the proxy class of this builder.
+     * @param sharedChain
+     *            the interceptors the proxy starts with, ending with {@link InterceptorDelegator#WRAPPED}.
+     *
+     * @return a new proxy.
+     */
+    <T> T buildWrapping(Object target, ProxyClass proxyClass, InterceptorChain sharedChain) {
+        return build(wrappingType(), proxyClass, sharedChain, Objects.requireNonNull(target));
+    }
+
+    // proxies of objects are created without a constructor, interface proxies does not have one.
+    private ProxyType wrappingType() {
+        return type == ProxyType.INTERFACE ? ProxyType.INTERFACE : ProxyType.OBJECT;
+    }
+
+    private <T> T build(ProxyType type, ProxyClass proxyClass, InterceptorChain chain) {
+        return build(type, proxyClass, chain, null);
+    }
+
+    private <T> T build(ProxyType type, ProxyClass proxyClass, InterceptorChain chain, Object wrapped) {
         try {
-            return createProxyObject(type);
+            return createProxyObject(type, proxyClass,
+                    new JavassistInterceptorMethodHandler(proxyClass, chain.forInstance(), wrapped));
         } catch (Exception e) {
             throw new ProxyException("Not able to create proxy", e);
         }
     }
 
+    /**
+     * Resolves the proxy class and as much as possible of what its first proxies would otherwise resolve, see
+     * {@link ProxyBlueprint}.
+     *
+     * @return the proxy class of this builder.
+     */
+    ProxyClass prewarm() {
+        ProxyClass proxyClass = getProxyClass();
+        try {
+            List<MethodDispatch> dispatches = proxyClass.prewarm(METHOD_FILTER::isHandled);
+            if (superclass != null && superclass != Object.class) { // proxies may delegate to instances of it.
+                InterceptorDelegator.prewarm(superclass, dispatches);
+            }
+        } catch (RuntimeException e) { // NOSONAR resolved by the calls that need it, like without prewarming.
+            LOG.debug("Was not able to prewarm the proxy class of: {}", superclass, e);
+        }
+        return proxyClass;
+    }
+
     void setInterfaces(Class<?>... interfaces) {
-        factory.setInterfaces(makeAValidInterfaceArray(interfaces));
+        this.interfaces = makeAValidInterfaceArray(interfaces);
     }
 
     void setSuperclass(Class<?> classToIntercept) {
         if (ProxyObject.class.isAssignableFrom(classToIntercept)) { // Because it's not possible to proxy a proxy class
                                                                     // because of setHandler duplicate exception.
-            factory.setSuperclass(classToIntercept.getSuperclass());
+            superclass = classToIntercept.getSuperclass();
+        } else if (JdkProxyEngine.isProxyClass(classToIntercept)) { // final, and only implements interfaces.
+            superclass = Object.class;
         } else {
-            factory.setSuperclass(classToIntercept);
+            superclass = classToIntercept;
         }
     }
 
+    // the proxy class, failing like when it's generated while a proxy is created.
+    private ProxyClass createdProxyClass() {
+        try {
+            return getProxyClass();
+        } catch (RuntimeException e) {
+            throw new ProxyException("Not able to create proxy", e);
+        }
+    }
+
+    ProxyClass getProxyClass() {
+        return ProxyClassCache.get(backend, superclass, interfaces, this::generateProxyClass);
+    }
+
+    private Class<?> generateProxyClass() {
+        Class<?> proxyClass = backend.getEngine().createProxyClass(superclass, interfaces, METHOD_FILTER);
+        if (proxyClass == null) {
+            LOG.debug("The {} backend is not able to proxy: {} {}, using: {}", backend, superclass,
+                    Arrays.asList(interfaces), ProxyBackend.JAVASSIST);
+            proxyClass = ProxyBackend.JAVASSIST.getEngine().createProxyClass(superclass, interfaces, METHOD_FILTER);
+        }
+        return proxyClass;
+    }
+
+    /**
+     * Generates the proxy class used for a type, and writes it to a directory. See {@link ProxyClassGenerator}.
+     *
+     * @param type
+     *            the class or interface that will be proxied.
+     * @param javaBean
+     *            true to generate the class used by {@link Proxy#javaBean(Class)}, the class with the additional set
+     *            methods is also written to the directory.
+     * @param outputDirectory
+     *            the directory, a class path root, where the class files are written.
+     *
+     * @return the generated proxy class.
+     */
+    static Class<?> pregenerateProxyClass(Class<?> type, boolean javaBean, String outputDirectory) {
+        Class<?> proxied = javaBean ? addAdditionalSetMethodsToClass(type, outputDirectory) : type;
+        InterceptableProxyFactory builder = forType(proxied);
+        return PregeneratedProxyClasses.generate(
+                JavassistProxyEngine.newProxyFactory(builder.superclass, builder.interfaces, METHOD_FILTER),
+                builder.superclass, builder.interfaces, outputDirectory);
+    }
+
+    /**
+     * Resolves the proxy class used for a type and everything that its first proxies would otherwise resolve. See
+     * {@link Proxy#prewarm(Class...)}.
+     *
+     * @param type
+     *            the class or interface that will be proxied.
+     */
+    static void prewarmProxyClass(Class<?> type) {
+        List<MethodDispatch> dispatches;
+        try {
+            dispatches = forType(type).getProxyClass().prewarm(METHOD_FILTER::isHandled);
+        } catch (ProxyException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ProxyException("Not able to prewarm the proxy class of: " + type.getName(), e);
+        }
+        if (!type.isInterface()) { // object proxies of the type delegates to instances of it.
+            InterceptorDelegator.prewarm(type, dispatches);
+        }
+    }
+
+    /**
+     * @return a builder of the proxy class that {@link Proxy#with(Class)} and {@link Proxy#with(Object)} use for a
+     *         type.
+     */
+    private static InterceptableProxyFactory forType(Class<?> type) {
+        InterceptableProxyFactory builder;
+        if (type.isInterface()) {
+            builder = new InterceptableProxyFactory(ProxyType.INTERFACE);
+            builder.setInterfaces(filterOnlyAccessableInterfaces(type, type));
+        } else {
+            builder = new InterceptableProxyFactory(ProxyType.CLASS);
+            builder.setSuperclass(type);
+            builder.setInterfaces(filterOnlyAccessableInterfaces(type));
+        }
+        return builder;
+    }
+
     private static Class<?> addAdditionalSetMethodsToClass(Class<?> javaBean) {
+        return JAVA_BEAN_CLASSES.get(javaBean);
+    }
+
+    private static Class<?> addAdditionalSetMethodsToClass(Class<?> javaBean, String outputDirectory) {
 
         CtClass cc = null;
-        try {
-            return Thread.currentThread().getContextClassLoader()
-                    .loadClass(javaBean.getCanonicalName() + ADDITIONAL_METHODS_SUFFIX);
-        } catch (ClassNotFoundException e) { // NOSONAR
-            LOG.trace(javaBean.getCanonicalName() + ADDITIONAL_METHODS_SUFFIX + " did not exist. Creates one");
+        if (outputDirectory != null) { // generating at build time, always creates a new one.
             cc = createNewClass(javaBean);
             addAdditionalSetMethodsTo(cc);
-        } catch (RuntimeException e) { // NOSONAR (workaround) Powermock's classloader throws RuntimeException.
-            if (e.getCause() != null && e.getCause() instanceof NotFoundException) {
+            writeFile(cc, outputDirectory);
+        } else {
+            try {
+                return Thread.currentThread().getContextClassLoader()
+                        .loadClass(javaBean.getCanonicalName() + ADDITIONAL_METHODS_SUFFIX);
+            } catch (ClassNotFoundException e) { // NOSONAR
+                LOG.trace(javaBean.getCanonicalName() + ADDITIONAL_METHODS_SUFFIX + " did not exist. Creates one");
+                cc = createNewClass(javaBean);
+                addAdditionalSetMethodsTo(cc);
+            } catch (RuntimeException e) { // NOSONAR (workaround) Powermock's classloader throws RuntimeException.
+                if (e.getCause() == null || !(e.getCause() instanceof NotFoundException)) {
+                    throw e;
+                }
                 LOG.trace(javaBean.getCanonicalName() + ADDITIONAL_METHODS_SUFFIX + " did not exist. Creates one");
                 cc = createNewClass(javaBean);
                 addAdditionalSetMethodsTo(cc);
             }
         }
+        String dumpDirectory = outputDirectory == null ? PregeneratedProxyClasses.dumpDirectory() : null;
+        if (dumpDirectory != null) {
+            writeFile(cc, dumpDirectory);
+        }
         try {
-            double javaSpecVersion = Double.parseDouble(System.getProperty("java.specification.version"));
-            if (javaSpecVersion > 10) { // Use different API on Java11 and later versions.
-                return cc.toClass(javaBean);
-            } else {
-                return cc.toClass(Thread.currentThread().getContextClassLoader(), javaBean.getProtectionDomain());
-            }
+            return cc.toClass(javaBean);
         } catch (CannotCompileException e) {
             LOG.warn(
                     "Was not able to create new proxy class. Will use the provided one instead which won't have the additional methods.",
                     e);
+        } finally {
+            detach(cc, javaBean);
         }
         return javaBean;
     }
 
+    private static void writeFile(CtClass cc, String outputDirectory) {
+        try {
+            cc.writeFile(outputDirectory);
+        } catch (CannotCompileException | IOException e) {
+            throw new ProxyException("Was not able to write " + cc.getName() + " to " + outputDirectory, e);
+        }
+    }
+
     private static CtClass createNewClass(Class<?> javaBean) {
 
-        final ClassPool pool = ClassPool.getDefault();
+        final ClassPool pool = classPoolFor(javaBean);
 
         CtClass cc = null;
         try {
-            cc = pool.get(getJavaBeanClassName(javaBean));
-            cc.setName(javaBean.getCanonicalName() + ADDITIONAL_METHODS_SUFFIX);
-        } catch (final NotFoundException e) {
-            ProxyException.throwThisShouldNeverHappen(e);
-        }
-        try {
-            cc.setSuperclass(pool.get(getJavaBeanClassName(javaBean)));
+            CtClass original = pool.get(getJavaBeanClassName(javaBean));
+            cc = pool.getAndRename(original.getName(), javaBean.getCanonicalName() + ADDITIONAL_METHODS_SUFFIX);
+            cc.setSuperclass(original);
         } catch (CannotCompileException e) {
             throw new ProxyException("Was not able to create new proxy class", e);
-        } catch (NotFoundException e) {
+        } catch (final NotFoundException e) {
             ProxyException.throwThisShouldNeverHappen(e);
         }
         return cc;
     }
 
+    private static ClassPool classPoolFor(Class<?> javaBean) {
+        ClassLoader loader = javaBean.getClassLoader();
+        synchronized (CLASS_POOLS) {
+            return CLASS_POOLS.computeIfAbsent(loader, key -> {
+                ClassPool pool = new ClassPool(key == null);
+                if (key != null) {
+                    pool.appendClassPath(new LoaderClassPath(key)); // refers weakly to the class loader.
+                }
+                return pool;
+            });
+        }
+    }
+
+    /**
+     * Removes the new class and the java bean class from their pool, the new class is defined or written and nothing
+     * will use them again. The other classes in the pool, like the types of the methods, are shared by the java beans
+     * of the same class loader.
+     */
+    private static void detach(CtClass cc, Class<?> javaBean) {
+        try {
+            CtClass[] interfaces = cc.getInterfaces();
+            CtClass original = javaBean.isInterface() ? interfaces[interfaces.length - 1] : cc.getSuperclass();
+            if (original.getName().equals(javaBean.getName())) {
+                original.detach();
+            }
+        } catch (NotFoundException e) { // NOSONAR already found when the class was created.
+            LOG.trace("Was not able to detach the java bean class of: " + cc.getName(), e);
+        }
+        cc.detach();
+    }
+
     private static String getJavaBeanClassName(Class<?> javaBean) {
         String className = javaBean.getCanonicalName();
         if (javaBean.getEnclosingClass() != null) {
@@ -172,8 +444,9 @@ final class InterceptableProxyFactory {
                 CtMethod newMethod = null;
                 try {
                     CtClass[] param = new CtClass[] { method.getReturnType() };
-                    newMethod = CtNewMethod.abstractMethod(ClassPool.getDefault().get(Void.class.getCanonicalName()),
-                            newMethodName, param, null, classToAddMethodTo);
+                    newMethod = CtNewMethod.abstractMethod(
+                            classToAddMethodTo.getClassPool().get(Void.class.getCanonicalName()), newMethodName, param,
+                            null, classToAddMethodTo);
                 } catch (NotFoundException e) {
                     ProxyException.throwThisShouldNeverHappen(e);
                 }
@@ -201,81 +474,82 @@ final class InterceptableProxyFactory {
     }
 
     private static Class<?>[] makeAValidInterfaceArray(Class<?>... interfaces) {
-        // makes a ordered set of the interfaces. (removes duplicates)
-        Set<Class<?>> set = new LinkedHashSet<Class<?>>(Arrays.asList(interfaces));
-        set.remove(InterceptableProxy.class); // remove is exists
-        set.add(InterceptableProxy.class); // needed by this library.
-        set.remove(ProxyObject.class); // not allowed by javassit.
-        set.remove(ProxyObject.class); // not allowed by javassit.
-        return set.toArray(new Class<?>[set.size()]);
+        // makes a ordered set of the interfaces. (removes duplicates) without allocating sets, this is done for every
+        // created proxy and there is seldom more than a few interfaces.
+        Class<?>[] result = new Class<?>[interfaces.length + 1];
+        int size = 0;
+        for (Class<?> inter : interfaces) {
+            // InterceptableProxy is added last, ProxyObject is not allowed by javassit.
+            if (inter != InterceptableProxy.class && inter != ProxyObject.class && !contains(result, size, inter)) {
+                result[size++] = inter;
+            }
+        }
+        result[size++] = InterceptableProxy.class; // needed by this library.
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static Class<?>[] concat(Class<?>[] first, Class<?>[] second) {
+        Class<?>[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static boolean contains(Class<?>[] array, int size, Class<?> clazz) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == clazz) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @SuppressWarnings("unchecked")
-    private <T> T createProxyObject(ProxyType type)
+    private <T> T createProxyObject(ProxyType type, ProxyClass proxyClass, MethodHandler handler)
             throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
 
         if (type == ProxyType.OBJECT) {
             try {
-                return createProxyWithObjenesis(); // will not call a constructor.
+                return createProxyWithObjenesis(proxyClass, handler); // will not call a constructor.
             } catch (Throwable t) { // NOSONAR
-                return createProxyObject(ProxyType.CLASS);
+                return createProxyObject(ProxyType.CLASS, proxyClass, handler);
             }
         } else if (type == ProxyType.INTERFACE) {
-            return (T) factory.create(null, null, new JavassistInterceptorMethodHandler());
+            return (T) proxyClass.newInstance(handler);
         } else { // ProxyType.CLASS
 
             // DONE 1 use constructor arguments.
             // DONE 2 use default constructor
             // DONE 3 use objenesis
             if (constructorArgs != null) {
-                return (T) factory.create(findConstructorParameterTypes(factory.getSuperclass(), constructorArgs),
-                        constructorArgs, new JavassistInterceptorMethodHandler());
+                return (T) proxyClass.newInstance(handler, constructorArgs);
             }
 
-            try {
+            if (proxyClass.hasDefaultConstructor()) {
                 // Create object with methodHandler, used the empty constructor.
-                return (T) factory.create(null, null, new JavassistInterceptorMethodHandler());
-            } catch (NoSuchMethodException e) {
-                LOG.debug(
-                        "Was not able to create proxy with constructor or it does not exist. Will try to construct without constructor");
-                return createProxyWithObjenesis();
+                return (T) proxyClass.newInstance(handler);
             }
+            LOG.debug(
+                    "Was not able to create proxy with constructor or it does not exist. Will try to construct without constructor");
+            return createProxyWithObjenesis(proxyClass, handler);
         }
     }
 
-    private Class<?>[] findConstructorParameterTypes(Class<?> clazz, Object... args) {
+    private <T> T createProxyWithObjenesis(ProxyClass proxyClass, MethodHandler handler) {
+        return (T) proxyClass.newInstanceWithoutConstructor(handler);
+    }
 
-        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
-            Class<?>[] parameterTypes = constructor.getParameterTypes();
-            boolean matchingArgs = false;
-            for (int i = 0; i < parameterTypes.length; i++) {
-                if (args[i] == null && !parameterTypes[i].isPrimitive()) {
-                    matchingArgs = true; // null should match all Object types
-                } else if (parameterTypes[i].isAssignableFrom(args[i].getClass())) {
-                    matchingArgs = true;
-                } else {
-                    matchingArgs = false;
-                    break;
-                }
-            }
-            if (matchingArgs) {
-                return parameterTypes;
-            }
-        }
-        throw new ProxyException(
-                "Did not find any constructor matching the provided arguments: " + Arrays.asList(args));
+    static <T> T createANewInterfaceProxy(Class<?>... interfaces) {
+        return createANewInterfaceProxy(defaultBackend, interfaces);
     }
 
-    private <T> T createProxyWithObjenesis() {
-        Object obj = ObjenesisHelper.newInstance(factory.createClass());
-        ((ProxyObject) obj).setHandler(new JavassistInterceptorMethodHandler());
-        return (T) obj;
+    static <T> T createANewInterfaceProxy(ProxyBackend backend, Class<?>... interfaces) {
+        return forInterfaces(backend, interfaces).build();
     }
 
-    static <T> T createANewInterfaceProxy(Class<?>... interfaces) {
-        InterceptableProxyFactory builder = new InterceptableProxyFactory(ProxyType.INTERFACE);
+    static InterceptableProxyFactory forInterfaces(ProxyBackend backend, Class<?>... interfaces) {
+        InterceptableProxyFactory builder = new InterceptableProxyFactory(ProxyType.INTERFACE, backend);
         builder.setInterfaces(filterOnlyAccessableInterfaces(interfaces[0], interfaces));
-        return builder.build();
+        return builder;
     }
 
     static <T> T createANewInterfaceJavaBeanProxy(Class<?> toJavaBeanify) {
@@ -288,69 +562,236 @@ final class InterceptableProxyFactory {
     }
 
     static <T> T createANewObjectProxyIfNeeded(final T objectToIntercept, Class<?>... interfaces) {
-        if (!Util.isNewProxyNeeded(objectToIntercept, makeAValidInterfaceArray(interfaces))) {
+        return createANewObjectProxyIfNeeded(defaultBackend, objectToIntercept, interfaces);
+    }
+
+    static <T> T createANewObjectProxyIfNeeded(ProxyBackend backend, final T objectToIntercept,
+            Class<?>... interfaces) {
+        return createANewObjectProxyIfNeeded(backend, objectToIntercept, InterceptorChain.EMPTY, interfaces);
+    }
+
+    /**
+     * @param chain
+     *            the interceptors of the proxy, the delegation to the object is added last. If the object already is a
+     *            proxy they are added to it.
+     */
+    static <T> T createANewObjectProxyIfNeeded(ProxyBackend backend, final T objectToIntercept, InterceptorChain chain,
+            Class<?>... interfaces) {
+        if (addToExistingProxy(objectToIntercept, chain, makeAValidInterfaceArray(interfaces))) {
             return objectToIntercept;
         }
 
         // was not a already proxy object -> create new one.
-        InterceptableProxyFactory builder = new InterceptableProxyFactory(ProxyType.OBJECT);
+        InterceptableProxyFactory builder = forObject(backend, objectToIntercept.getClass(), interfaces);
+        return builder.buildDelegatingTo(objectToIntercept, builder.createdProxyClass(), chain);
+    }
+
+    /**
+     * Adds the interceptors of a chain to an object that already is a proxy with the interfaces of this builder,
+     * instead of creating a proxy of the proxy.
+     *
+     * @return true if the object was such a proxy and got the interceptors.
+     */
+    boolean addToExistingProxy(Object object, InterceptorChain chain) {
+        return addToExistingProxy(object, chain, interfaces);
+    }
 
-        builder.setSuperclass(objectToIntercept.getClass());
-        builder.setInterfaces(filterOnlyAccessableInterfaces(objectToIntercept.getClass(), interfaces));
-        T proxy = builder.build();
-        Proxy.getProxyInterface(proxy).addInterceptor(new InterceptorDelegator(objectToIntercept));
-        return proxy;
+    private static boolean addToExistingProxy(Object object, InterceptorChain chain, Class<?>[] interfaces) {
+        if (Util.isNewProxyNeeded(object, interfaces)) {
+            return false;
+        }
+        Interceptor[] interceptors = chain.forInstance().getInterceptors();
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            Proxy.getProxyInterface(object).addInterceptor(interceptors[i]);
+        }
+        return true;
+    }
+
+    static InterceptableProxyFactory forObject(ProxyBackend backend, Class<?> objectClass, Class<?>... interfaces) {
+        InterceptableProxyFactory builder = new InterceptableProxyFactory(ProxyType.OBJECT, backend);
+        builder.setSuperclass(objectClass);
+        if (JdkProxyEngine.isProxyClass(objectClass)) { // the interfaces are not inherited from the superclass.
+            builder.setInterfaces(concat(objectClass.getInterfaces(), interfaces));
+        } else {
+            builder.setInterfaces(filterOnlyAccessableInterfaces(objectClass, interfaces));
+        }
+        return builder;
     }
 
     static <T> T createANewClassProxy(final Class<T> classToIntercept, Class<?>... interfaces) {
-        InterceptableProxyFactory builder = new InterceptableProxyFactory(ProxyType.CLASS);
-        builder.setSuperclass(classToIntercept);
-        builder.setInterfaces(filterOnlyAccessableInterfaces(classToIntercept, interfaces));
-        return builder.build();
+        return createANewClassProxy(defaultBackend, classToIntercept, interfaces);
+    }
+
+    static <T> T createANewClassProxy(ProxyBackend backend, final Class<T> classToIntercept, Class<?>... interfaces) {
+        return forClass(backend, classToIntercept, null, interfaces).build();
     }
 
     static <T> T createANewClassProxyWithArguments(final Class<T> classToIntercept, Object... constructorArgs) {
-        InterceptableProxyFactory builder = new InterceptableProxyFactory(ProxyType.CLASS);
+        return createANewClassProxyWithArguments(defaultBackend, classToIntercept, constructorArgs);
+    }
+
+    static <T> T createANewClassProxyWithArguments(ProxyBackend backend, final Class<T> classToIntercept,
+            Object... constructorArgs) {
+        return forClass(backend, classToIntercept, constructorArgs).build();
+    }
+
+    /**
+     * @param constructorArgs
+     *            arguments to the constructor of the class, or null to use the empty constructor if there is one.
+     */
+    static InterceptableProxyFactory forClass(ProxyBackend backend, Class<?> classToIntercept, Object[] constructorArgs,
+            Class<?>... interfaces) {
+        InterceptableProxyFactory builder = new InterceptableProxyFactory(ProxyType.CLASS, backend);
         builder.constructorArgs = constructorArgs;
         builder.setSuperclass(classToIntercept);
-        builder.setInterfaces(new Class<?>[0]);
-        return builder.build();
+        builder.setInterfaces(filterOnlyAccessableInterfaces(classToIntercept, interfaces));
+        return builder;
     }
 
-    private static class JavassistInterceptorMethodHandler implements MethodHandler {
+    static <T> UnaryOperator<T> createObjectProxyCreator(Interceptor interceptor) {
+        return new ObjectProxyCreator<>(defaultBackend, interceptor);
+    }
+
+    /**
+     * Creates proxies of objects like {@link #createANewObjectProxyIfNeeded(Object, Class...)} followed by adding an
+     * interceptor. The proxy class is resolved once per class of the objects, after that a proxy is one instantiation
+     * with a method handler that already has its interceptors. Thread safe.
+     */
+    private static final class ObjectProxyCreator<T> implements UnaryOperator<T> {
+
+        private final ProxyBackend backend;
+        private final Interceptor interceptor;
+        private final InterceptorChain sharedChain;
+        // empty when the proxies of the class have to be created the ordinary way.
+        private final Map<Class<?>, Optional<ProxyClass>> proxyClasses = new ConcurrentHashMap<>();
+
+        ObjectProxyCreator(ProxyBackend backend, Interceptor interceptor) {
+            this.backend = backend;
+            this.interceptor = Objects.requireNonNull(interceptor);
+            this.sharedChain = InterceptorChain.of(interceptor, InterceptorDelegator.WRAPPED);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T apply(T object) {
+            if (object == null) {
+                return null;
+            }
+            Optional<ProxyClass> proxyClass = proxyClasses.get(object.getClass());
+            if (proxyClass == null) {
+                proxyClass = proxyClasses.computeIfAbsent(object.getClass(), this::resolve);
+            }
+            if (!proxyClass.isPresent() || object instanceof InterceptableProxy) {
+                T proxy = createANewObjectProxyIfNeeded(backend, object);
+                Proxy.getProxyInterface(proxy).addInterceptor(interceptor);
+                return proxy;
+            }
+            return (T) proxyClass.get().newInstanceWithoutConstructor(
+                    new JavassistInterceptorMethodHandler(proxyClass.get(), sharedChain, object));
+        }
 
-        private static Method addInterceptorMethod;
-        private static Method removeInterceptorMethod;
-        private static Method getInterceptorListMethod;
-        static {
+        private Optional<ProxyClass> resolve(Class<?> objectClass) {
+            if (InterceptableProxy.class.isAssignableFrom(objectClass)) {
+                return Optional.empty();
+            }
             try {
-                addInterceptorMethod = InterceptableProxy.class.getMethod("addInterceptor", Interceptor.class);
-                removeInterceptorMethod = InterceptableProxy.class.getMethod("removeInterceptor", Interceptor.class);
-                getInterceptorListMethod = InterceptableProxy.class.getMethod("getInterceptorList");
-            } catch (SecurityException | NoSuchMethodException e) {
-                ProxyException.throwThisShouldNeverHappen(e);
+                ProxyClass proxyClass = forObject(backend, objectClass).getProxyClass();
+                proxyClass.newInstanceWithoutConstructor(
+                        new JavassistInterceptorMethodHandler(proxyClass, InterceptorChain.EMPTY, null));
+                return Optional.of(proxyClass);
+            } catch (Throwable t) { // NOSONAR created the ordinary way, which falls back to a constructor.
+                return Optional.empty();
             }
         }
+    }
+
+    /**
+     * Switches off, or on again, the interceptors with a {@link InterceptorCategory} of one proxy. See
+     * {@link Proxy#setProxyInterceptionEnabled(Object, boolean)}.
+     *
+     * @return true if they were switched off before.
+     */
+    static boolean setSwitchedOff(Object proxy, boolean off) {
+        Object handler = null;
+        if (proxy instanceof ProxyObject) {
+            handler = ((ProxyObject) proxy).getHandler();
+        } else if (proxy != null && JdkProxyEngine.isProxyClass(proxy.getClass())) {
+            handler = java.lang.reflect.Proxy.getInvocationHandler(proxy);
+        }
+        if (!(handler instanceof JavassistInterceptorMethodHandler)) {
+            throw new IllegalArgumentException("Not possible to switch the interception of a non proxy object");
+        }
+        return ((JavassistInterceptorMethodHandler) handler).setSwitchedOff(off);
+    }
+
+    // Also the invocation handler of proxies created by the JdkProxyEngine, so they don't need another object.
+    private static class JavassistInterceptorMethodHandler implements MethodHandler, InvocationHandler {
+
+        private static final AtomicReferenceFieldUpdater<JavassistInterceptorMethodHandler, InterceptorChain> CHAIN = AtomicReferenceFieldUpdater
+                .newUpdater(JavassistInterceptorMethodHandler.class, InterceptorChain.class, "chain");
 
-        private final ArrayDeque<Interceptor> interceptorStack = new ArrayDeque<>();
+        // The chain is immutable, it's replaced with compare and set when interceptors are added or removed.
+        // Invocations never lock and keep using the chain they started with.
+        // The chain can be shared with other proxies, the object of this proxy is then referred to by the handler.
+        private volatile InterceptorChain chain;
+        private final ProxyClass proxyClass;
+        private final Object wrapped;
+
+        JavassistInterceptorMethodHandler(ProxyClass proxyClass, InterceptorChain chain, Object wrapped) {
+            this.proxyClass = proxyClass;
+            this.chain = chain;
+            this.wrapped = wrapped;
+        }
 
         @Override
         public Object invoke(Object self, Method method, Method proceed, Object[] args) throws Throwable {
-
-            if (Util.methodSignatureEquals(method, addInterceptorMethod)) {
-                interceptorStack.push((Interceptor) args[0]);
-                return null;
+            MethodDispatch dispatch = proxyClass.getDispatch(method);
+            if (dispatch.getControlMethod() != ControlMethod.NONE) {
+                return invokeControlMethod(dispatch.getControlMethod(), args);
             }
-            if (Util.methodSignatureEquals(method, removeInterceptorMethod)) {
-                interceptorStack.remove(args[0]);
-                return null;
+            Interceptor[] interceptors = chain.forMethod(dispatch, InterceptionSwitch.switchedOffCategories());
+            if (interceptors.length == 0 && dispatch.isWithImplementation()) {
+                return dispatch.proceed(proceed, self, args); // nothing intercepts this method.
             }
-            if (Util.methodSignatureEquals(method, getInterceptorListMethod)) {
-                return interceptorStack;
+            if (interceptors.length == 1 && interceptors[0] instanceof InterceptorDelegator) {
+                Object result = ((InterceptorDelegator) interceptors[0]).delegate(dispatch, args, wrapped);
+                if (result != InterceptorDelegator.NOT_DELEGATED) {
+                    return result; // only delegated, no interceptor needs an invocation.
+                }
             }
-
-            return new Invocation(self, method, proceed, args, interceptorStack.clone()).invoke();
+            return new Invocation(self, dispatch, proceed, args, interceptors, wrapped).invoke();
             // TODO wrap the checked exception if it is thrown even if its not declared in the interface.
         }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return invoke(proxy, method, null, JdkProxyEngine.argsOf(args));
+        }
+
+        boolean setSwitchedOff(boolean off) {
+            InterceptorChain current;
+            do {
+                current = chain;
+            } while (!CHAIN.compareAndSet(this, current, current.switchedOff(off)));
+            return current.isSwitchedOff();
+        }
+
+        private Object invokeControlMethod(ControlMethod controlMethod, Object[] args) {
+            InterceptorChain current;
+            if (controlMethod == ControlMethod.ADD_INTERCEPTOR) {
+                Interceptor interceptorToAdd = Objects.requireNonNull((Interceptor) args[0]);
+                do {
+                    current = chain;
+                } while (!CHAIN.compareAndSet(this, current, current.with(interceptorToAdd)));
+                return null;
+            } else if (controlMethod == ControlMethod.REMOVE_INTERCEPTOR) {
+                do {
+                    current = chain;
+                } while (!CHAIN.compareAndSet(this, current, current.without(args[0])));
+                return null;
+            } else { // ControlMethod.GET_INTERCEPTOR_LIST
+                return new ArrayDeque<>(Arrays.asList(chain.getInterceptors()));
+            }
+        }
     }
 }
@@ -0,0 +1,140 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Activates interceptors only in the threads that run inside the scope, for example diagnostics of a single request.
+ * Created by {@link Proxy#newInterceptionScope()}:
+ *
+ * <pre>
+ * InterceptionScope profiling = Proxy.newInterceptionScope();
+ * Proxy.intercept(service, profiling.bind(timer));
+ *
+ * profiling.run(() -&gt; handle(request)); // only this call is timed
+ * </pre>
+ *
+ * Threads that are not inside a scope skip the bound interceptors entirely, a proxy that only has bound interceptors
+ * calls the original method or its object directly. While no scope is active in any thread that costs the other threads
+ * a read of a counter, while a scope is active a read of a {@link ThreadLocal}. Scopes can be nested, also with
+ * themselves, and are thread safe.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+public final class InterceptionScope {
+
+    // number of threads inside a scope, counted once per scope they are inside.
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+    // the scopes of a thread, innermost last, set only while the thread is inside a scope.
+    private static final ThreadLocal<List<InterceptionScope>> SCOPES_OF_THREAD = new ThreadLocal<>();
+
+    InterceptionScope() {
+    }
+
+    /**
+     * @param interceptor
+     *            an interceptor that should only intercept calls of threads inside this scope.
+     *
+     * @return an interceptor to add instead of the bound one.
+     */
+    public Interceptor bind(Interceptor interceptor) {
+        return new InterceptorScoped(this, interceptor);
+    }
+
+    /**
+     * Runs a task inside this scope, in the calling thread.
+     *
+     * @param task
+     *            the task to run.
+     */
+    public void run(Runnable task) {
+        enter();
+        try {
+            task.run();
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Calls a task inside this scope, in the calling thread.
+     *
+     * @param <V>
+     *            the result type of the task.
+     * @param task
+     *            the task to call.
+     *
+     * @return the result of the task.
+     *
+     * @throws Exception
+     *             if the task throws.
+     */
+    public <V> V call(Callable<V> task) throws Exception {
+        enter();
+        try {
+            return task.call();
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * @return true if the calling thread is inside this scope.
+     */
+    public boolean isActive() {
+        if (ACTIVE.get() == 0) {
+            return false;
+        }
+        List<InterceptionScope> scopes = SCOPES_OF_THREAD.get();
+        return scopes != null && scopes.contains(this);
+    }
+
+    /**
+     * @return true if the calling thread is inside any scope.
+     */
+    static boolean isAnyActive() {
+        return ACTIVE.get() != 0 && SCOPES_OF_THREAD.get() != null;
+    }
+
+    private void enter() {
+        List<InterceptionScope> scopes = SCOPES_OF_THREAD.get();
+        if (scopes == null) {
+            scopes = new ArrayList<>(2);
+            SCOPES_OF_THREAD.set(scopes);
+        }
+        scopes.add(this);
+        ACTIVE.incrementAndGet();
+    }
+
+    private void exit() {
+        ACTIVE.decrementAndGet();
+        List<InterceptionScope> scopes = SCOPES_OF_THREAD.get();
+        scopes.remove(scopes.size() - 1);
+        if (scopes.isEmpty()) {
+            SCOPES_OF_THREAD.remove(); // pooled threads don't keep anything after the scope.
+        }
+    }
+}
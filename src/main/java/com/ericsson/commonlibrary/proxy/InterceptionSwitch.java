@@ -0,0 +1,116 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+
+/**
+ * The global switch of the interceptors of each {@link InterceptorCategory}.
+ * <p>
+ * Which categories are switched off is the target of a {@link MutableCallSite}, that compiled code treats as a
+ * constant. While nothing is switched off the proxies pay nothing for the switch, switching deoptimizes the code that
+ * has read it.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class InterceptionSwitch {
+
+    /**
+     * The bit of the interceptors bound to a {@link InterceptionScope}, switched off in threads outside all scopes.
+     */
+    static final int SCOPED = Integer.MIN_VALUE;
+
+    /**
+     * All categories, also the bits of categories that don't exist, but not {@link #SCOPED}. Being bound to a scope is
+     * not a category, a bound interceptor without a category is essential inside its scope.
+     */
+    static final int ALL = ~SCOPED;
+
+    private static final MutableCallSite SWITCHED_OFF = new MutableCallSite(MethodHandles.constant(int.class, 0));
+    private static final MethodHandle SWITCHED_OFF_CATEGORIES = SWITCHED_OFF.dynamicInvoker();
+
+    private static int switchedOff = 0; // guarded by the class, the target of SWITCHED_OFF.
+
+    private InterceptionSwitch() {
+        // hidden
+    }
+
+    /**
+     * @return the bits, see {@link InterceptorCategory#bit()}, of the categories that are switched off.
+     */
+    static int switchedOffCategories() {
+        try {
+            return (int) SWITCHED_OFF_CATEGORIES.invokeExact();
+        } catch (Throwable e) { // NOSONAR a constant method handle doesn't throw.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param categories
+     *            bits of the categories to switch.
+     * @param enabled
+     *            false to switch the categories off, true to switch them on.
+     */
+    static synchronized void setEnabled(int categories, boolean enabled) {
+        int updated = enabled ? switchedOff & ~categories : switchedOff | categories;
+        if (updated != switchedOff) {
+            switchedOff = updated;
+            SWITCHED_OFF.setTarget(MethodHandles.constant(int.class, updated));
+            MutableCallSite.syncAll(new MutableCallSite[] { SWITCHED_OFF });
+        }
+    }
+
+    static boolean isEnabled(InterceptorCategory category) {
+        return (switchedOffCategories() & category.bit()) == 0;
+    }
+
+    /**
+     * @return the bits of the category of an interceptor and {@link #SCOPED} if it's bound to a scope, or 0 if it's
+     *         essential.
+     */
+    static int categoryBits(Interceptor interceptor) {
+        int bits = 0;
+        Interceptor categorized = interceptor;
+        while (true) {
+            if (categorized instanceof InterceptorMethod) {
+                categorized = ((InterceptorMethod) categorized).getInterceptor();
+            } else if (categorized instanceof InterceptorScoped) {
+                bits |= SCOPED;
+                categorized = ((InterceptorScoped) categorized).getInterceptor();
+            } else if (categorized instanceof InterceptorCategorized) {
+                bits |= ((InterceptorCategorized) categorized).getCategory().bit();
+                categorized = ((InterceptorCategorized) categorized).getInterceptor();
+            } else if (categorized instanceof InterceptorMethodTimer) {
+                return bits | InterceptorCategory.TIMER.bit();
+            } else if (categorized instanceof InterceptorMdc) {
+                return bits | InterceptorCategory.MDC.bit();
+            } else if (categorized instanceof InterceptorRecursive) {
+                return bits | InterceptorCategory.RECURSIVE.bit();
+            } else {
+                return bits;
+            }
+        }
+    }
+}
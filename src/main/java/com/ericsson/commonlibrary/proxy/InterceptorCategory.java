@@ -0,0 +1,63 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+/**
+ * Categories of non-essential interceptors, that can be switched off at runtime without removing them from their
+ * proxies, for example during a latency incident. See
+ * {@link Proxy#setInterceptionEnabled(InterceptorCategory, boolean)} and
+ * {@link Proxy#setProxyInterceptionEnabled(Object, boolean)}.
+ * <p>
+ * The interceptors of {@link Proxy#addTimerToMethods(Object)}, {@link Proxy#mdcLogging(Object, String, String)} and
+ * {@link Proxy#recursiveIntercept(Object, Interceptor)} have a category, other interceptors get one with
+ * {@link Proxy#inCategory(InterceptorCategory, Interceptor)}. Interceptors without a category are essential and are
+ * never switched off, like the delegation to the object of {@link Proxy#with(Object)}.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+public enum InterceptorCategory {
+
+    /**
+     * The method timer of {@link Proxy#addTimerToMethods(Object)}.
+     */
+    TIMER,
+
+    /**
+     * The MDC interceptor of {@link Proxy#mdcLogging(Object, String, String)}.
+     */
+    MDC,
+
+    /**
+     * The interceptors added with {@link Proxy#recursiveIntercept(Object, Interceptor)}. When switched off the
+     * interceptor is neither called nor added to returned objects.
+     */
+    RECURSIVE,
+
+    /**
+     * Interceptors of the application that are not needed for the proxies to work, like logging or metrics.
+     */
+    OPTIONAL;
+
+    int bit() {
+        return 1 << ordinal();
+    }
+}
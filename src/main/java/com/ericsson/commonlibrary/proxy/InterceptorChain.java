@@ -0,0 +1,273 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable chain of {@link Interceptor}s, the last added interceptor is first. Adding or removing an interceptor
+ * creates a new chain.
+ * <p>
+ * Method specific interceptors ({@link InterceptorMethod}) are resolved once per proxied method, the first time the
+ * method is called, into a chain with only the interceptors that applies to that method. A call therefore never visits
+ * interceptors that does not intercept the called method. Chains without method specific interceptors are the same for
+ * all methods.
+ * <p>
+ * A chain can be a template for many proxies, with {@link InterceptorSupplier}s in place of interceptors that every
+ * proxy has its own instance of. See {@link #forInstance()}.
+ * <p>
+ * The interceptors of a {@link InterceptorCategory} that is switched off, globally or for the proxy of the chain, are
+ * skipped by {@link #forMethod(MethodDispatch, int)}, so are interceptors bound to a {@link InterceptionScope} in
+ * threads outside all scopes. The chain without them is created once per combination of skipped interceptors, the two
+ * latest combinations are kept.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class InterceptorChain {
+
+    static final InterceptorChain EMPTY = new InterceptorChain(new Interceptor[0], false);
+
+    private final Interceptor[] interceptors;
+    private final Map<MethodDispatch, Interceptor[]> methodChains;
+    private final int categories;
+    private final boolean template;
+    private final boolean switchedOff;
+    private volatile SwitchedOffChain switchedOffChains;
+
+    private InterceptorChain(Interceptor[] interceptors, boolean switchedOff) {
+        this.interceptors = interceptors;
+        this.methodChains = hasMethodInterceptor(interceptors) ? new ConcurrentHashMap<>() : null;
+        this.categories = categoriesOf(interceptors);
+        this.template = hasInterceptorSupplier(interceptors);
+        this.switchedOff = switchedOff;
+    }
+
+    /**
+     * @param interceptors
+     *            in chain order, the first is called first.
+     *
+     * @return a chain of the interceptors, as if they were added from the last to the first.
+     */
+    static InterceptorChain of(Interceptor... interceptors) {
+        return new InterceptorChain(interceptors.clone(), false);
+    }
+
+    /**
+     * @return all interceptors in the chain as they were added, the returned array must not be modified.
+     */
+    Interceptor[] getInterceptors() {
+        return interceptors;
+    }
+
+    /**
+     * @param interceptor
+     *            to add first in the chain.
+     *
+     * @return a new chain with the interceptor added.
+     */
+    InterceptorChain with(Interceptor interceptor) {
+        return new InterceptorChain(Util.concatArrays(new Interceptor[] { interceptor }, interceptors), switchedOff);
+    }
+
+    /**
+     * @param interceptor
+     *            to add last in the chain, as if it was added before all other interceptors.
+     *
+     * @return a new chain with the interceptor added.
+     */
+    InterceptorChain then(Interceptor interceptor) {
+        return new InterceptorChain(Util.concatArrays(interceptors, new Interceptor[] { interceptor }), switchedOff);
+    }
+
+    /**
+     * @param interceptor
+     *            to remove, only the first occurrence is removed.
+     *
+     * @return a new chain without the interceptor, or this chain if the interceptor was not part of it.
+     */
+    InterceptorChain without(Object interceptor) {
+        for (int i = 0; interceptor != null && i < interceptors.length; i++) {
+            if (interceptor.equals(interceptors[i])) {
+                Interceptor[] result = new Interceptor[interceptors.length - 1];
+                System.arraycopy(interceptors, 0, result, 0, i);
+                System.arraycopy(interceptors, i + 1, result, i, result.length - i);
+                return new InterceptorChain(result, switchedOff);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the chain of a new proxy, this chain unless it has {@link InterceptorSupplier}s that are replaced by the
+     *         interceptors they supply.
+     */
+    InterceptorChain forInstance() {
+        if (!template) {
+            return this;
+        }
+        Interceptor[] result = interceptors.clone();
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] instanceof InterceptorSupplier) {
+                result[i] = ((InterceptorSupplier) result[i]).get();
+            }
+        }
+        return new InterceptorChain(result, switchedOff);
+    }
+
+    /**
+     * @return true if all categorized interceptors of the chain are switched off, see {@link #switchedOff(boolean)}.
+     */
+    boolean isSwitchedOff() {
+        return switchedOff;
+    }
+
+    /**
+     * @param off
+     *            true to switch off all interceptors of the chain that have a {@link InterceptorCategory}, whichever
+     *            categories are switched off globally.
+     *
+     * @return a chain with the same interceptors, or this chain if it's already switched as requested.
+     */
+    InterceptorChain switchedOff(boolean off) {
+        return off == switchedOff ? this : new InterceptorChain(interceptors, off);
+    }
+
+    /**
+     * @param dispatch
+     *            the method being called.
+     * @param switchedOffCategories
+     *            bits of the categories that are switched off globally, see
+     *            {@link InterceptionSwitch#switchedOffCategories()}.
+     *
+     * @return the interceptors that should intercept the method, in order, without the switched off interceptors and
+     *         the scoped interceptors if the calling thread is outside all scopes. The returned array must not be
+     *         modified.
+     */
+    Interceptor[] forMethod(MethodDispatch dispatch, int switchedOffCategories) {
+        int excluded = switchedOff ? InterceptionSwitch.ALL : switchedOffCategories;
+        if ((categories & InterceptionSwitch.SCOPED) != 0 && !InterceptionScope.isAnyActive()) {
+            excluded |= InterceptionSwitch.SCOPED;
+        }
+        if ((categories & excluded) == 0) {
+            return forMethod(dispatch);
+        }
+        return withoutCategories(excluded).forMethod(dispatch);
+    }
+
+    private InterceptorChain withoutCategories(int excluded) {
+        SwitchedOffChain latest = switchedOffChains;
+        for (SwitchedOffChain cached = latest; cached != null; cached = cached.previous) {
+            if (cached.excluded == excluded) {
+                return cached.chain;
+            }
+        }
+        List<Interceptor> chain = new ArrayList<>(interceptors.length);
+        for (Interceptor interceptor : interceptors) {
+            if ((InterceptionSwitch.categoryBits(interceptor) & excluded) == 0) {
+                chain.add(interceptor);
+            }
+        }
+        InterceptorChain result = new InterceptorChain(chain.toArray(new Interceptor[chain.size()]), false);
+        // threads inside and outside a scope skip different interceptors, both are kept.
+        switchedOffChains = new SwitchedOffChain(excluded, result,
+                latest == null ? null : new SwitchedOffChain(latest.excluded, latest.chain, null));
+        return result;
+    }
+
+    /**
+     * @param dispatch
+     *            the method being called.
+     *
+     * @return the interceptors that should intercept the method, in order. The returned array must not be modified.
+     */
+    Interceptor[] forMethod(MethodDispatch dispatch) {
+        if (methodChains == null) {
+            return interceptors;
+        }
+        Interceptor[] chain = methodChains.get(dispatch);
+        if (chain == null) {
+            chain = resolve(dispatch.getMethod());
+            methodChains.putIfAbsent(dispatch, chain);
+        }
+        return chain;
+    }
+
+    private Interceptor[] resolve(Method method) {
+        List<Interceptor> chain = new ArrayList<>(interceptors.length);
+        for (Interceptor interceptor : interceptors) {
+            Interceptor resolved = interceptor;
+            while (resolved instanceof InterceptorMethod && ((InterceptorMethod) resolved).isIntercepting(method)) {
+                resolved = ((InterceptorMethod) resolved).getInterceptor();
+            }
+            if (!(resolved instanceof InterceptorMethod)) {
+                chain.add(resolved);
+            }
+        }
+        return chain.toArray(new Interceptor[chain.size()]);
+    }
+
+    private static int categoriesOf(Interceptor[] interceptors) {
+        int result = 0;
+        for (Interceptor interceptor : interceptors) {
+            result |= InterceptionSwitch.categoryBits(interceptor);
+        }
+        return result;
+    }
+
+    private static boolean hasInterceptorSupplier(Interceptor[] interceptors) {
+        for (Interceptor interceptor : interceptors) {
+            if (interceptor instanceof InterceptorSupplier) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasMethodInterceptor(Interceptor[] interceptors) {
+        for (Interceptor interceptor : interceptors) {
+            if (interceptor instanceof InterceptorMethod) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A chain without the skipped interceptors, and the chain that was cached before it.
+     */
+    private static final class SwitchedOffChain {
+
+        final int excluded;
+        final InterceptorChain chain;
+        final SwitchedOffChain previous;
+
+        SwitchedOffChain(int excluded, InterceptorChain chain, SwitchedOffChain previous) {
+            this.excluded = excluded;
+            this.chain = chain;
+            this.previous = previous;
+        }
+    }
+}
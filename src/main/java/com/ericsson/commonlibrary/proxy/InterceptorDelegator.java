@@ -21,20 +21,53 @@ SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 */
 package com.ericsson.commonlibrary.proxy;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ericsson.commonlibrary.proxy.MethodDispatch.ControlMethod;
+
 /**
  * A delegator interceptor. It will just delegate every call to a other objects. if no method is found it will call the
  * next interceptor or the original method.
+ * <p>
+ * Which method of a delegate that implements a proxied method is resolved once per delegate class and method signature,
+ * also when no method is found unless the signature has types the delegate class can't see, and shared by all
+ * delegators.
+ * <p>
+ * Proxies that share their chain with other proxies, see {@link ProxyBlueprint}, end the chain with {@link #WRAPPED}
+ * instead of a delegator of their own.
  *
  * @author Elis Edlund (elis.edlund@ericsson.com)
  */
 final class InterceptorDelegator implements Interceptor {
 
     private static final Logger LOG = LoggerFactory.getLogger(InterceptorDelegator.class);
+
+    private static final ClassValue<Map<MethodKey, DelegateMethod>> DELEGATE_METHODS = new ClassValue<Map<MethodKey, DelegateMethod>>() {
+        @Override
+        protected Map<MethodKey, DelegateMethod> computeValue(Class<?> delegateClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Delegates to the object that the invoked proxy wraps, so a chain ending with it can be shared by proxies of
+     * different objects and every proxy only refers to its own object.
+     */
+    static final InterceptorDelegator WRAPPED = new InterceptorDelegator((Object[]) null);
+
+    /**
+     * Returned by {@link #delegate(MethodDispatch, Object[], Object)} when no delegate implements the method.
+     */
+    static final Object NOT_DELEGATED = new Object();
+
+    // null for WRAPPED.
     private final Object[] implementations;
 
     InterceptorDelegator(Object... delegates) {
@@ -46,30 +79,113 @@ final class InterceptorDelegator implements Interceptor {
      */
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
-        Method method = invocation.getMethod();
-        Object[] args = invocation.getParameters();
-
-        if (Util.isToStringOrHashcodeOrEqualsMethod(method)) {
-            for (Object object : implementations) {
-                Method methodToRun = Util.findMethodWithSignature(method, object);
-                if (methodToRun != null && !isMethodDeclaredInObjectClass(methodToRun)) {
-                    methodToRun.setAccessible(true);
-                    return methodToRun.invoke(object, args);
+        Object result = delegate(invocation.getDispatch(), invocation.getParameters(), invocation.getWrapped());
+        return result != NOT_DELEGATED ? result : invokeNext(invocation);
+    }
+
+    /**
+     * Calls the delegate that implements a method. The proxies call it without an {@link Invocation} when the delegator
+     * is the only interceptor of the method.
+     *
+     * @param wrapped
+     *            the object of the proxy, used by {@link #WRAPPED}.
+     *
+     * @return the result of the delegate, or {@link #NOT_DELEGATED} if no delegate implements the method.
+     */
+    Object delegate(MethodDispatch dispatch, Object[] args, Object wrapped) throws Throwable {
+        if (implementations == null) {
+            if (wrapped != null) {
+                MethodHandle handle = getDelegateHandle(wrapped.getClass(), dispatch);
+                if (handle != null) {
+                    return (Object) handle.invokeExact(wrapped, args);
                 }
             }
-            return invocation.invoke(); // invokes the next interceptor or original
+            return NOT_DELEGATED;
         }
+        for (Object object : implementations) {
+            MethodHandle handle = getDelegateHandle(object.getClass(), dispatch);
+            if (handle != null) {
+                return (Object) handle.invokeExact(object, args);
+            }
+        }
+        return NOT_DELEGATED;
+    }
 
-        try {
-            return Util.invokeMethodWithSignature(method, args, implementations);
-        } catch (MethodWithSignatureNotFoundException e) {
-            LOG.trace("Was not able to find a implementation for the method:" + method.getName()
-                    + "(...) in this particular delegator. invoking next interceptor...");
-            return invocation.invoke();
+    @Override
+    public String toString() {
+        return implementations == null ? "InterceptorDelegator.WRAPPED" : super.toString();
+    }
+
+    // the handle of the delegate method, or null if the delegate class should not get the invocation.
+    private static MethodHandle getDelegateHandle(Class<?> delegateClass, MethodDispatch dispatch) {
+        DelegateMethod delegateMethod = getDelegateMethod(delegateClass, dispatch.getKey());
+        if (delegateMethod.declaredInObject && Util.isToStringOrHashcodeOrEqualsMethod(dispatch.getMethod())) {
+            return null;
         }
+        return delegateMethod.handle;
+    }
+
+    private static Object invokeNext(Invocation invocation) throws Throwable {
+        if (!Util.isToStringOrHashcodeOrEqualsMethod(invocation.getMethod())) {
+            LOG.trace("Was not able to find a implementation for the method:{} in this particular delegator. "
+                    + "invoking next interceptor...", invocation.getMethodKey());
+        }
+        return invocation.invoke(); // invokes the next interceptor or original
     }
 
     static boolean isMethodDeclaredInObjectClass(Method method) {
         return method.getDeclaringClass() == Object.class;
     }
+
+    /**
+     * Resolves the delegate methods of a delegate class ahead of the first calls.
+     *
+     * @param delegateClass
+     *            class of the delegates.
+     * @param dispatches
+     *            the methods that will be delegated.
+     */
+    static void prewarm(Class<?> delegateClass, List<MethodDispatch> dispatches) {
+        for (MethodDispatch dispatch : dispatches) {
+            if (dispatch.getControlMethod() == ControlMethod.NONE) {
+                getDelegateMethod(delegateClass, dispatch.getKey());
+            }
+        }
+    }
+
+    private static DelegateMethod getDelegateMethod(Class<?> delegateClass, MethodKey key) {
+        Map<MethodKey, DelegateMethod> delegateMethods = DELEGATE_METHODS.get(delegateClass);
+        DelegateMethod delegateMethod = delegateMethods.get(key);
+        if (delegateMethod == null) {
+            Method method = key.findIn(delegateClass);
+            delegateMethod = method == null ? DelegateMethod.NOT_FOUND : new DelegateMethod(method);
+            // A method that isn't found may have parameter types of a class loader below the one of the delegate
+            // class, remembering it would keep that class loader alive as long as the delegate class.
+            if (method != null || key.isVisibleFrom(delegateClass.getClassLoader())) {
+                delegateMethods.putIfAbsent(key, delegateMethod);
+            }
+        }
+        return delegateMethod;
+    }
+
+    /**
+     * The method of a delegate class with a specific signature, or {@link #NOT_FOUND}.
+     */
+    private static final class DelegateMethod {
+
+        static final DelegateMethod NOT_FOUND = new DelegateMethod();
+
+        final MethodHandle handle;
+        final boolean declaredInObject;
+
+        private DelegateMethod() {
+            this.handle = null;
+            this.declaredInObject = false;
+        }
+
+        DelegateMethod(Method method) {
+            this.handle = MethodDispatch.toGenericHandle(method);
+            this.declaredInObject = isMethodDeclaredInObjectClass(method);
+        }
+    }
 }
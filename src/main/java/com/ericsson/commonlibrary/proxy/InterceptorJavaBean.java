@@ -44,8 +44,7 @@ final class InterceptorJavaBean implements Interceptor {
 
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
-        if (!Util.isMethodExistingInClass(invocation.getMethod(), beanInterface)
-                || invocation.getMethod().isDefault()) {
+        if (MethodKey.of(invocation.getMethod()).findIn(beanInterface) == null || invocation.getMethod().isDefault()) {
             return invocation.invoke();
         }
 
@@ -30,11 +30,14 @@ import java.lang.reflect.Method;
  */
 final class InterceptorMethod implements Interceptor {
 
-    private final Method[] methods;
+    private final MethodKey[] methods;
     private final Interceptor interceptor;
 
     InterceptorMethod(Interceptor interceptor, Method... methods) {
-        this.methods = methods;
+        this.methods = new MethodKey[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            this.methods[i] = MethodKey.of(methods[i]);
+        }
         this.interceptor = interceptor;
     }
 
@@ -43,12 +46,33 @@ final class InterceptorMethod implements Interceptor {
      */
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
-        for (Method method : methods) {
-            if (Util.methodSignatureEquals(method, invocation.getMethod())) {
-                return interceptor.intercept(invocation);
-            }
+        if (isIntercepting(invocation.getMethod())) {
+            return interceptor.intercept(invocation);
         }
         return invocation.invoke();
     }
 
+    /**
+     * @param methodToCheck
+     *            method that might be intercepted.
+     *
+     * @return true if the concrete interceptor should intercept the method.
+     */
+    boolean isIntercepting(Method methodToCheck) {
+        MethodKey key = MethodKey.of(methodToCheck);
+        for (MethodKey method : methods) {
+            if (method.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the concrete interceptor.
+     */
+    Interceptor getInterceptor() {
+        return interceptor;
+    }
+
 }
@@ -0,0 +1,56 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.util.Objects;
+
+/**
+ * A utility decoration {@link Interceptor} that only calls another interceptor in threads inside a
+ * {@link InterceptionScope}. Chains skip it in threads outside all scopes, see {@link InterceptorChain}.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class InterceptorScoped implements Interceptor {
+
+    private final InterceptionScope scope;
+    private final Interceptor interceptor;
+
+    InterceptorScoped(InterceptionScope scope, Interceptor interceptor) {
+        this.scope = scope;
+        this.interceptor = Objects.requireNonNull(interceptor);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (scope.isActive()) {
+            return interceptor.intercept(invocation);
+        }
+        return invocation.invoke(); // the thread is inside another scope.
+    }
+
+    /**
+     * @return the bound interceptor.
+     */
+    Interceptor getInterceptor() {
+        return interceptor;
+    }
+}
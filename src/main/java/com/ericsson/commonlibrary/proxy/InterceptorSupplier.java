@@ -0,0 +1,56 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A place holder in an {@link InterceptorChain} for an interceptor that every proxy has its own instance of, the
+ * interceptor is supplied when the proxy is created. It's never part of the chain of a proxy.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class InterceptorSupplier implements Interceptor {
+
+    private final Supplier<? extends Interceptor> supplier;
+
+    InterceptorSupplier(Supplier<? extends Interceptor> supplier) {
+        this.supplier = Objects.requireNonNull(supplier);
+    }
+
+    /**
+     * @return a new interceptor for a proxy.
+     */
+    Interceptor get() {
+        Interceptor interceptor = supplier.get();
+        if (interceptor == null) {
+            throw new ProxyException("The interceptor supplier: " + supplier + " supplied null");
+        }
+        return interceptor;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        throw new ProxyException("The interceptor supplier: " + supplier + " was called instead of its interceptors");
+    }
+}
@@ -21,11 +21,9 @@ SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 */
 package com.ericsson.commonlibrary.proxy;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.List;
 
 /**
@@ -38,25 +36,38 @@ public final class Invocation {
 
     private final Object target;
     private final Object[] parameters;
-    private final Deque<Interceptor> interceptorStack;
-    private final Method method;
+    private final Interceptor[] interceptors;
+    private int nextInterceptor;
+    private final MethodDispatch dispatch;
     private final Method proceed;
+    private final Object wrapped;
 
-    private static Method interceptMethod;
-    static {
-        try {
-            interceptMethod = Interceptor.class.getMethod("intercept", Invocation.class);
-        } catch (SecurityException | NoSuchMethodException e) {
-            ProxyException.throwThisShouldNeverHappen(e);
-        }
+    /**
+     * @param interceptors
+     *            the interceptors to invoke in order, the array is never modified so it can be shared with other
+     *            invocations.
+     */
+    Invocation(Object target, MethodDispatch dispatch, Method proceed, Object[] targetArgs,
+            Interceptor[] interceptors) {
+        this(target, dispatch, proceed, targetArgs, interceptors, null);
     }
 
-    Invocation(Object target, Method method, Method proceed, Object[] targetArgs, Deque<Interceptor> interceptorStack) {
+    /**
+     * @param interceptors
+     *            the interceptors to invoke in order, the array is never modified so it can be shared with other
+     *            invocations.
+     * @param wrapped
+     *            the object that a proxy with a shared chain delegates to, or null. See
+     *            {@link InterceptorDelegator#WRAPPED}.
+     */
+    Invocation(Object target, MethodDispatch dispatch, Method proceed, Object[] targetArgs, Interceptor[] interceptors,
+            Object wrapped) {
         this.target = target;
-        this.method = method;
+        this.wrapped = wrapped;
+        this.dispatch = dispatch;
         this.proceed = proceed;
         this.parameters = targetArgs;
-        this.interceptorStack = interceptorStack;
+        this.interceptors = interceptors;
     }
 
     /**
@@ -70,14 +81,35 @@ public final class Invocation {
      * @return the method that was intercepted.
      */
     public Method getMethod() {
-        return method;
+        return dispatch.getMethod();
+    }
+
+    /**
+     * @return the signature of the method that was intercepted.
+     */
+    MethodKey getMethodKey() {
+        return dispatch.getKey();
+    }
+
+    /**
+     * @return the dispatch of the method that was intercepted.
+     */
+    MethodDispatch getDispatch() {
+        return dispatch;
+    }
+
+    /**
+     * @return the object that the proxy delegates to with {@link InterceptorDelegator#WRAPPED}, or null.
+     */
+    Object getWrapped() {
+        return wrapped;
     }
 
     /**
      * @return the methodName of the method that was intercepted.
      */
     public String getMethodName() {
-        return method.getName();
+        return dispatch.getMethod().getName();
     }
 
     /**
@@ -118,27 +150,18 @@ public final class Invocation {
      */
     public Object invoke() throws Throwable {
 
-        if (interceptorStack.isEmpty()) {
-            if (Util.isMethodWithImplementation(method)) {
-                try {
-                    return proceed.invoke(target, parameters); // invoke original
-                } catch (InvocationTargetException e) {
-                    Util.filterExceptionAndRethrowCorrect(e);
-                }
+        if (nextInterceptor == interceptors.length) {
+            if (dispatch.isWithImplementation()) {
+                return dispatch.proceed(proceed, target, parameters); // invoke original
             }
             throw new UnsupportedOperationException(
                     "There exist's no implementation of method: " + this.getMethodName() + "(...) to delegate to.");
         }
 
         // TODO handle if null was returned for a primitive.
-        try {
-            // if concrete object has been used for proxy creation the last interceptor is a InterceptorDelegator to
-            // this object
-            return interceptMethod.invoke(interceptorStack.pop(), this); // invokes next interceptor.
-        } catch (InvocationTargetException e) {
-            Util.filterExceptionAndRethrowCorrect(e);
-            throw ProxyException.returnThisShouldNeverHappen("Failed to re-throw real exception: ", e);
-        }
+        // if concrete object has been used for proxy creation the last interceptor is a InterceptorDelegator to
+        // this object
+        return interceptors[nextInterceptor++].intercept(this); // invokes next interceptor.
     }
 
 }
@@ -0,0 +1,60 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import javassist.util.proxy.MethodFilter;
+import javassist.util.proxy.ProxyFactory;
+
+/**
+ * Generates proxy classes with the javassist {@link ProxyFactory}, or loads them if they were generated at build time
+ * by {@link ProxyClassGenerator}. With {@value ProxyClassGenerator#DUMP_DIRECTORY_PROPERTY} set, the generated classes
+ * get the names of pre-generated classes and are written to that directory. The names are given through the global
+ * {@link ProxyFactory#nameGenerator}, which is then replaced for the whole JVM.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class JavassistProxyEngine implements ProxyEngine {
+
+    @Override
+    public Class<?> createProxyClass(Class<?> superclass, Class<?>[] interfaces, MethodFilter filter) {
+        Class<?> pregenerated = PregeneratedProxyClasses.load(superclass, interfaces);
+        if (pregenerated != null) {
+            return pregenerated;
+        }
+        ProxyFactory factory = newProxyFactory(superclass, interfaces, filter);
+        String dumpDirectory = PregeneratedProxyClasses.dumpDirectory();
+        if (dumpDirectory != null && PregeneratedProxyClasses.nameOf(superclass, interfaces) != null) {
+            return PregeneratedProxyClasses.dump(factory, superclass, interfaces, dumpDirectory);
+        }
+        return factory.createClass();
+    }
+
+    static ProxyFactory newProxyFactory(Class<?> superclass, Class<?>[] interfaces, MethodFilter filter) {
+        ProxyFactory factory = new ProxyFactory();
+        factory.setFilter(filter);
+        if (superclass != null) {
+            factory.setSuperclass(superclass);
+        }
+        factory.setInterfaces(interfaces);
+        return factory;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javassist.util.proxy.MethodFilter;
+import javassist.util.proxy.MethodHandler;
+
+/**
+ * Proxies interfaces with {@link java.lang.reflect.Proxy}, the JDK defines and caches the proxy classes itself and no
+ * bytecode is generated by this library. Proxies with a superclass are left to the other engines.
+ * <p>
+ * The proxy classes differ from the other engines: they do not implement {@link javassist.util.proxy.ProxyObject}, the
+ * method handler is given to the constructor, see {@link #newInstance(MethodHandle, MethodHandler)}, and there are no
+ * methods that invoke the original implementations. The method handler is called with a null proceed method, and
+ * {@link MethodDispatch} resolves the default methods and the methods of {@link Object} itself.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class JdkProxyEngine implements ProxyEngine {
+
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, InvocationHandler.class);
+    private static final InvocationHandler NOT_USED = (proxy, method, args) -> {
+        throw new IllegalStateException("Only used to get the proxy class");
+    };
+
+    @Override
+    public Class<?> createProxyClass(Class<?> superclass, Class<?>[] interfaces, MethodFilter filter) {
+        if (superclass != null && superclass != Object.class) {
+            return null;
+        }
+        if (!isProxiedAsFiltered(interfaces, filter) || !isDefaultMethodsAccessible(interfaces)) {
+            return null;
+        }
+        for (ClassLoader loader : candidateLoaders(interfaces)) {
+            try {
+                return java.lang.reflect.Proxy.newProxyInstance(loader, interfaces, NOT_USED).getClass();
+            } catch (IllegalArgumentException e) { // NOSONAR some interface is not visible from the loader.
+                // try the next loader.
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the proxy class is a {@link java.lang.reflect.Proxy} class.
+     */
+    static boolean isProxyClass(Class<?> type) {
+        return java.lang.reflect.Proxy.isProxyClass(type);
+    }
+
+    /**
+     * @return the constructor of a proxy class, with the type (InvocationHandler)Object.
+     */
+    static MethodHandle findConstructor(Class<?> proxyClass) throws NoSuchMethodException, IllegalAccessException {
+        Constructor<?> constructor = proxyClass.getConstructor(InvocationHandler.class);
+        if (!Modifier.isPublic(proxyClass.getModifiers())) {
+            constructor.setAccessible(true); // defined in the package of a non public interface.
+        }
+        return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+    }
+
+    /**
+     * Creates a new proxy with a constructor from {@link #findConstructor(Class)}. A method handler that also is an
+     * {@link InvocationHandler} is used as is, so the proxy is not larger than the proxies of the other engines.
+     */
+    static Object newInstance(MethodHandle constructor, MethodHandler handler) throws Throwable {
+        InvocationHandler invocationHandler = handler instanceof InvocationHandler ? (InvocationHandler) handler
+                : (proxy, method, args) -> handler.invoke(proxy, method, null, argsOf(args));
+        return (Object) constructor.invokeExact(invocationHandler);
+    }
+
+    /**
+     * @return the name that toString uses for proxies of the proxy class, it starts with the name of the first
+     *         interface like the class names of the other engines do.
+     */
+    static String nameOf(Class<?> proxyClass) {
+        return proxyClass.getInterfaces()[0].getName() + "$$" + proxyClass.getSimpleName();
+    }
+
+    /**
+     * @return the arguments as the method handler expects them, the JDK passes null to methods without parameters.
+     */
+    static Object[] argsOf(Object[] args) {
+        return args == null ? NO_ARGS : args;
+    }
+
+    /**
+     * All interface methods, and equals, hashCode and toString, are always passed to the invocation handler.
+     */
+    private static boolean isProxiedAsFiltered(Class<?>[] interfaces, MethodFilter filter) {
+        for (Method method : Object.class.getMethods()) {
+            if (Util.isToStringOrHashcodeOrEqualsMethod(method) && !filter.isHandled(method)) {
+                return false;
+            }
+        }
+        for (Class<?> inter : interfaces) {
+            for (Method method : inter.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()) && !filter.isHandled(method)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Default methods are invoked with a private lookup in their interface, which requires that the package is open to
+     * this library. That is not the case for the interfaces of the JDK.
+     */
+    private static boolean isDefaultMethodsAccessible(Class<?>[] interfaces) {
+        for (Class<?> inter : interfaces) {
+            for (Method method : inter.getMethods()) {
+                if (method.isDefault()) {
+                    try {
+                        MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+                    } catch (IllegalAccessException e) { // NOSONAR not accessible
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The proxy class is defined in a loader that can see all the interfaces, the loaders of the interfaces are tried
+     * first and then the loader of this library.
+     */
+    private static Set<ClassLoader> candidateLoaders(Class<?>[] interfaces) {
+        Set<ClassLoader> loaders = new LinkedHashSet<>();
+        for (Class<?> inter : interfaces) {
+            if (inter.getClassLoader() != null) {
+                loaders.add(inter.getClassLoader());
+            }
+        }
+        loaders.add(JdkProxyEngine.class.getClassLoader());
+        return loaders;
+    }
+}
@@ -0,0 +1,633 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.BadBytecode;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.CodeAttribute;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.ExceptionsAttribute;
+import javassist.bytecode.FieldInfo;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.Opcode;
+import javassist.bytecode.StackMapTable;
+import javassist.util.proxy.MethodFilter;
+import javassist.util.proxy.MethodHandler;
+import javassist.util.proxy.ProxyObject;
+
+/**
+ * Generates the bytecode of proxy classes directly and defines them with a {@link Lookup} in the package of the proxied
+ * class or interface. The proxied methods call the method handler of the proxy directly, the methods they pass to it
+ * are resolved once when the proxy class is defined.
+ * <p>
+ * On a JVM that supports hidden classes (Java 15 and later) the proxy classes are defined as hidden classes, that can
+ * be unloaded as soon as they are no longer used even if their class loader is still alive. On older JVMs, and when the
+ * package of the proxied class is only open and not readable by this library, they are defined with
+ * {@link Lookup#defineClass(byte[])}.
+ * <p>
+ * Shapes that can't be defined this way, for example proxies of JDK classes or of classes whose class loader can't see
+ * this library, are not generated by this engine.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class LookupProxyEngine implements ProxyEngine {
+
+    static final String NAME_SEPARATOR = "$$LookupProxy$";
+
+    private static final Logger LOG = LoggerFactory.getLogger(LookupProxyEngine.class);
+
+    private static final String HANDLER_FIELD = "handler";
+    private static final String HANDLER_TYPE = descriptorOf(MethodHandler.class);
+    private static final String METHODS_FIELD = "methods";
+    private static final String METHODS_TYPE = descriptorOf(Method[].class);
+    private static final String PROCEED_METHOD_PREFIX = "_d";
+    private static final String INVOKE_DESCRIPTOR = MethodType
+            .methodType(Object.class, Object.class, Method.class, Method.class, Object[].class)
+            .toMethodDescriptorString();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    @Override
+    public Class<?> createProxyClass(Class<?> superclass, Class<?>[] interfaces, MethodFilter filter) {
+        Class<?> parent = superclass == null ? Object.class : superclass;
+        Class<?> host = superclass == null ? interfaces[0] : superclass;
+        List<ProxiedMethod> methods = findProxiedMethods(parent, interfaces, filter);
+        List<Constructor<?>> constructors = findConstructors(parent);
+        if (Modifier.isFinal(parent.getModifiers()) || constructors.isEmpty()
+                || !isDefinable(host.getClassLoader(), interfaces, methods, constructors)) {
+            return null;
+        }
+        String name = host.getName() + NAME_SEPARATOR + NEXT_ID.incrementAndGet();
+        byte[] bytes = generate(name, parent, interfaces, methods, constructors);
+        Lookup proxyLookup;
+        try {
+            proxyLookup = ClassDefiner.define(MethodHandles.privateLookupIn(host, MethodHandles.lookup()), bytes);
+        } catch (IllegalAccessException | SecurityException e) {
+            LOG.debug("Not able to define a proxy class in the package of: {}", host.getName(), e);
+            return null;
+        }
+        Class<?> proxyClass = proxyLookup.lookupClass();
+        try {
+            proxyLookup.findStaticSetter(proxyClass, METHODS_FIELD, Method[].class)
+                    .invoke(resolveMethods(proxyClass, methods));
+        } catch (Throwable e) { // NOSONAR the setter can't throw, only the lookup.
+            throw ProxyException.returnThisShouldNeverHappen("Not able to initialize proxy class: " + name, e);
+        }
+        return proxyClass;
+    }
+
+    /**
+     * The methods of the superclass, the interfaces of the superclass and the interfaces, in that order, that can be
+     * overridden and are accepted by the filter. Methods of a superclass override the methods with the same name and
+     * descriptor of its superclasses and interfaces. Bridge methods are left as they are, they invoke the proxied
+     * method they bridge to.
+     */
+    private static List<ProxiedMethod> findProxiedMethods(Class<?> parent, Class<?>[] interfaces, MethodFilter filter) {
+        List<ProxiedMethod> methods = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        for (Class<?> current = parent; current != null; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (signatures.add(signatureOf(method)) && isOverridable(method, parent) && filter.isHandled(method)) {
+                    boolean abstractMethod = Modifier.isAbstract(method.getModifiers());
+                    methods.add(new ProxiedMethod(method, abstractMethod ? null : parent));
+                }
+            }
+        }
+        for (Method method : parent.getMethods()) {
+            if (method.getDeclaringClass().isInterface() && signatures.add(signatureOf(method))
+                    && filter.isHandled(method)) {
+                methods.add(new ProxiedMethod(method, method.isDefault() ? parent : null));
+            }
+        }
+        for (Class<?> inter : interfaces) {
+            for (Method method : inter.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()) && signatures.add(signatureOf(method))
+                        && filter.isHandled(method)) {
+                    methods.add(new ProxiedMethod(method, method.isDefault() ? inter : null));
+                }
+            }
+        }
+        nameProceedMethods(methods, signatures);
+        return methods;
+    }
+
+    /**
+     * Names the proceed methods "_d" followed by an index and the name of the method, the index is the position of the
+     * method unless that name is already used by a method of the superclass or interfaces.
+     */
+    private static void nameProceedMethods(List<ProxiedMethod> methods, Set<String> signatures) {
+        int nextFreeIndex = methods.size();
+        for (int i = 0; i < methods.size(); i++) {
+            ProxiedMethod proxied = methods.get(i);
+            if (proxied.implementation != null) {
+                String descriptor = descriptorOf(proxied.method);
+                int index = i;
+                while (signatures.contains(proceedNameOf(index, proxied.method) + descriptor)) {
+                    index = nextFreeIndex++;
+                }
+                proxied.proceedName = proceedNameOf(index, proxied.method);
+            }
+        }
+    }
+
+    private static boolean isOverridable(Method method, Class<?> parent) {
+        int modifiers = method.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isPrivate(modifiers)
+                || method.isBridge()) {
+            return false;
+        }
+        return Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)
+                || isSamePackage(method.getDeclaringClass(), parent);
+    }
+
+    private static boolean isSamePackage(Class<?> clazz, Class<?> other) {
+        return clazz.getClassLoader() == other.getClassLoader()
+                && clazz.getPackageName().equals(other.getPackageName());
+    }
+
+    private static List<Constructor<?>> findConstructors(Class<?> parent) {
+        List<Constructor<?>> constructors = new ArrayList<>();
+        for (Constructor<?> constructor : parent.getDeclaredConstructors()) {
+            if (!Modifier.isPrivate(constructor.getModifiers())) {
+                constructors.add(constructor);
+            }
+        }
+        return constructors;
+    }
+
+    /**
+     * The proxy class is defined by the class loader of the host, so all classes it refers to has to be visible from
+     * that class loader.
+     */
+    private static boolean isDefinable(ClassLoader loader, Class<?>[] interfaces, List<ProxiedMethod> methods,
+            List<Constructor<?>> constructors) {
+        if (!isVisible(ProxyObject.class, loader) || !isVisible(MethodHandler.class, loader)) {
+            return false;
+        }
+        for (Class<?> inter : interfaces) {
+            if (!isVisible(inter, loader)) {
+                return false;
+            }
+        }
+        for (ProxiedMethod proxied : methods) {
+            if (!isVisible(proxied.method.getReturnType(), loader) || !isVisible(proxied.method, loader)) {
+                return false;
+            }
+        }
+        for (Constructor<?> constructor : constructors) {
+            if (!isVisible(constructor, loader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(Executable executable, ClassLoader loader) {
+        for (Class<?> type : executable.getParameterTypes()) {
+            if (!isVisible(type, loader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(Class<?> type, ClassLoader loader) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(type.getName(), false, loader) == type;
+        } catch (ClassNotFoundException | LinkageError e) { // NOSONAR not visible.
+            return false;
+        }
+    }
+
+    private static Method[] resolveMethods(Class<?> proxyClass, List<ProxiedMethod> methods)
+            throws NoSuchMethodException {
+        Method[] resolved = new Method[methods.size() * 2];
+        for (int i = 0; i < methods.size(); i++) {
+            ProxiedMethod proxied = methods.get(i);
+            resolved[i * 2] = proxied.method;
+            if (proxied.implementation != null) {
+                resolved[i * 2 + 1] = proxyClass.getDeclaredMethod(proxied.proceedName,
+                        proxied.method.getParameterTypes());
+            }
+        }
+        return resolved;
+    }
+
+    private static byte[] generate(String name, Class<?> parent, Class<?>[] interfaces, List<ProxiedMethod> methods,
+            List<Constructor<?>> constructors) {
+        ClassFile classFile = new ClassFile(false, name, parent.getName());
+        classFile.setMajorVersion(ClassFile.JAVA_8);
+        classFile.setAccessFlags(AccessFlag.PUBLIC | AccessFlag.SUPER);
+        String[] interfaceNames = new String[interfaces.length + 1];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaceNames[i] = interfaces[i].getName();
+        }
+        interfaceNames[interfaces.length] = ProxyObject.class.getName();
+        classFile.setInterfaces(interfaceNames);
+
+        ConstPool constPool = classFile.getConstPool();
+        FieldInfo handler = new FieldInfo(constPool, HANDLER_FIELD, HANDLER_TYPE);
+        handler.setAccessFlags(AccessFlag.PRIVATE);
+        classFile.addField2(handler);
+        FieldInfo methodsField = new FieldInfo(constPool, METHODS_FIELD, METHODS_TYPE);
+        methodsField.setAccessFlags(AccessFlag.STATIC);
+        classFile.addField2(methodsField);
+
+        for (Constructor<?> constructor : constructors) {
+            addConstructor(classFile, parent, constructor);
+        }
+        addHandlerAccessors(classFile);
+        for (int i = 0; i < methods.size(); i++) {
+            ProxiedMethod proxied = methods.get(i);
+            addProxiedMethod(classFile, i, proxied);
+            if (proxied.implementation != null) {
+                addProceedMethod(classFile, proxied);
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            classFile.write(out);
+        } catch (IOException e) {
+            throw ProxyException.returnThisShouldNeverHappen("Not able to write proxy class: " + name, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void addConstructor(ClassFile classFile, Class<?> parent, Constructor<?> constructor) {
+        ConstPool constPool = classFile.getConstPool();
+        String descriptor = MethodType.methodType(void.class, constructor.getParameterTypes())
+                .toMethodDescriptorString();
+        MethodInfo info = new MethodInfo(constPool, MethodInfo.nameInit, descriptor);
+        info.setAccessFlags(AccessFlag.PUBLIC | (constructor.isVarArgs() ? AccessFlag.VARARGS : 0));
+        addExceptions(info, constructor.getExceptionTypes());
+        Bytecode code = new Bytecode(constPool);
+        code.addAload(0);
+        int slots = addLoadParameters(code, constructor.getParameterTypes());
+        code.addInvokespecial(parent.getName(), MethodInfo.nameInit, descriptor);
+        code.addOpcode(Opcode.RETURN);
+        code.setMaxLocals(slots);
+        setCode(info, code, -1);
+        classFile.addMethod2(info);
+    }
+
+    private static void addHandlerAccessors(ClassFile classFile) {
+        ConstPool constPool = classFile.getConstPool();
+        int handler = constPool.addFieldrefInfo(constPool.getThisClassInfo(), HANDLER_FIELD, HANDLER_TYPE);
+
+        MethodInfo setter = new MethodInfo(constPool, "setHandler", "(" + HANDLER_TYPE + ")V");
+        setter.setAccessFlags(AccessFlag.PUBLIC);
+        Bytecode code = new Bytecode(constPool);
+        code.addAload(0);
+        code.addAload(1);
+        code.addOpcode(Opcode.PUTFIELD);
+        code.addIndex(handler);
+        code.addOpcode(Opcode.RETURN);
+        code.setMaxLocals(2);
+        setCode(setter, code, -1);
+        classFile.addMethod2(setter);
+
+        MethodInfo getter = new MethodInfo(constPool, "getHandler", "()" + HANDLER_TYPE);
+        getter.setAccessFlags(AccessFlag.PUBLIC);
+        code = new Bytecode(constPool);
+        code.addAload(0);
+        code.addOpcode(Opcode.GETFIELD);
+        code.addIndex(handler);
+        code.addOpcode(Opcode.ARETURN);
+        code.setMaxLocals(1);
+        setCode(getter, code, -1);
+        classFile.addMethod2(getter);
+    }
+
+    /**
+     * Calls the method handler with the method, its proceed method and the arguments. Invokes the original
+     * implementation directly when no handler is set yet, for example when the constructor of the superclass calls the
+     * method.
+     */
+    private static void addProxiedMethod(ClassFile classFile, int index, ProxiedMethod proxied) {
+        Method method = proxied.method;
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        ConstPool constPool = classFile.getConstPool();
+        int handler = constPool.addFieldrefInfo(constPool.getThisClassInfo(), HANDLER_FIELD, HANDLER_TYPE);
+        int methods = constPool.addFieldrefInfo(constPool.getThisClassInfo(), METHODS_FIELD, METHODS_TYPE);
+
+        MethodInfo info = new MethodInfo(constPool, method.getName(), descriptorOf(method));
+        info.setAccessFlags(accessOf(method) | AccessFlag.FINAL);
+        addExceptions(info, method.getExceptionTypes());
+        Bytecode code = new Bytecode(constPool);
+        code.addAload(0);
+        code.addOpcode(Opcode.GETFIELD);
+        code.addIndex(handler);
+        int branch = code.currentPc();
+        code.addOpcode(Opcode.IFNULL);
+        code.addIndex(0); // the offset is written when it's known.
+
+        code.addAload(0);
+        code.addOpcode(Opcode.GETFIELD);
+        code.addIndex(handler);
+        code.addAload(0);
+        for (int i = 0; i < 2; i++) { // the method and its proceed method.
+            code.addOpcode(Opcode.GETSTATIC);
+            code.addIndex(methods);
+            code.addIconst(index * 2 + i);
+            code.addOpcode(Opcode.AALOAD);
+        }
+        code.addIconst(parameterTypes.length);
+        code.addAnewarray(Object.class.getName());
+        int slot = 1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            code.addOpcode(Opcode.DUP);
+            code.addIconst(i);
+            slot += addLoad(code, slot, parameterTypes[i]);
+            addBox(code, parameterTypes[i]);
+            code.addOpcode(Opcode.AASTORE);
+        }
+        code.addInvokeinterface(MethodHandler.class.getName(), "invoke", INVOKE_DESCRIPTOR, 5);
+        addReturnFromObject(code, method.getReturnType());
+
+        int withoutHandler = code.currentPc();
+        code.write16bit(branch + 1, withoutHandler - branch);
+        if (proxied.implementation != null) {
+            addInvokeImplementation(code, proxied);
+        } else {
+            code.addNew(AbstractMethodError.class.getName());
+            code.addOpcode(Opcode.DUP);
+            code.addLdc(method.toString());
+            code.addInvokespecial(AbstractMethodError.class.getName(), MethodInfo.nameInit, "(Ljava/lang/String;)V");
+            code.addOpcode(Opcode.ATHROW);
+        }
+        code.setMaxLocals(slot);
+        setCode(info, code, withoutHandler);
+        classFile.addMethod2(info);
+    }
+
+    private static void addProceedMethod(ClassFile classFile, ProxiedMethod proxied) {
+        Method method = proxied.method;
+        ConstPool constPool = classFile.getConstPool();
+        MethodInfo info = new MethodInfo(constPool, proxied.proceedName, descriptorOf(method));
+        info.setAccessFlags(AccessFlag.PUBLIC | AccessFlag.FINAL);
+        addExceptions(info, method.getExceptionTypes());
+        Bytecode code = new Bytecode(constPool);
+        int slots = addInvokeImplementation(code, proxied);
+        code.setMaxLocals(slots);
+        setCode(info, code, -1);
+        classFile.addMethod2(info);
+    }
+
+    /**
+     * @return number of local variable slots used by this and the parameters.
+     */
+    private static int addInvokeImplementation(Bytecode code, ProxiedMethod proxied) {
+        Method method = proxied.method;
+        Class<?> implementation = proxied.implementation;
+        code.addAload(0);
+        int slots = addLoadParameters(code, method.getParameterTypes());
+        int implementationInfo = code.getConstPool().addClassInfo(implementation.getName());
+        code.addInvokespecial(implementation.isInterface(), implementationInfo, method.getName(), descriptorOf(method));
+        addReturn(code, method.getReturnType());
+        return slots;
+    }
+
+    /**
+     * @param frameAt
+     *            the position of the only branch target in the code, or -1 if there is none.
+     */
+    private static void setCode(MethodInfo info, Bytecode code, int frameAt) {
+        CodeAttribute attribute = code.toCodeAttribute();
+        try {
+            attribute.computeMaxStack();
+        } catch (BadBytecode e) {
+            throw ProxyException.returnThisShouldNeverHappen("Generated invalid bytecode for: " + info.getName(), e);
+        }
+        if (frameAt >= 0) { // the locals at the branch target are the parameters, as on entry.
+            StackMapTable.Writer frames = new StackMapTable.Writer(32);
+            frames.sameFrame(frameAt);
+            attribute.setAttribute(frames.toStackMapTable(info.getConstPool()));
+        }
+        info.setCodeAttribute(attribute);
+    }
+
+    private static void addExceptions(MethodInfo info, Class<?>[] exceptionTypes) {
+        if (exceptionTypes.length == 0) {
+            return;
+        }
+        String[] names = new String[exceptionTypes.length];
+        for (int i = 0; i < exceptionTypes.length; i++) {
+            names[i] = exceptionTypes[i].getName();
+        }
+        ExceptionsAttribute exceptions = new ExceptionsAttribute(info.getConstPool());
+        exceptions.setExceptions(names);
+        info.setExceptionsAttribute(exceptions);
+    }
+
+    private static int addLoadParameters(Bytecode code, Class<?>[] parameterTypes) {
+        int slot = 1;
+        for (Class<?> type : parameterTypes) {
+            slot += addLoad(code, slot, type);
+        }
+        return slot;
+    }
+
+    /**
+     * @return number of slots the loaded value uses.
+     */
+    private static int addLoad(Bytecode code, int slot, Class<?> type) {
+        if (type == long.class) {
+            code.addLload(slot);
+            return 2;
+        } else if (type == double.class) {
+            code.addDload(slot);
+            return 2;
+        } else if (type == float.class) {
+            code.addFload(slot);
+        } else if (type.isPrimitive()) {
+            code.addIload(slot);
+        } else {
+            code.addAload(slot);
+        }
+        return 1;
+    }
+
+    private static void addBox(Bytecode code, Class<?> type) {
+        if (type.isPrimitive()) {
+            Class<?> wrapper = wrap(type);
+            code.addInvokestatic(wrapper.getName(), "valueOf",
+                    MethodType.methodType(wrapper, type).toMethodDescriptorString());
+        }
+    }
+
+    private static void addReturnFromObject(Bytecode code, Class<?> returnType) {
+        if (returnType == void.class) {
+            code.addOpcode(Opcode.POP);
+        } else if (returnType.isPrimitive()) {
+            Class<?> wrapper = wrap(returnType);
+            code.addCheckcast(wrapper.getName());
+            code.addInvokevirtual(wrapper.getName(), returnType.getName() + "Value",
+                    MethodType.methodType(returnType).toMethodDescriptorString());
+        } else if (returnType != Object.class) {
+            code.addCheckcast(returnType.getName());
+        }
+        addReturn(code, returnType);
+    }
+
+    private static void addReturn(Bytecode code, Class<?> returnType) {
+        if (returnType == void.class) {
+            code.addOpcode(Opcode.RETURN);
+        } else if (returnType == long.class) {
+            code.addOpcode(Opcode.LRETURN);
+        } else if (returnType == double.class) {
+            code.addOpcode(Opcode.DRETURN);
+        } else if (returnType == float.class) {
+            code.addOpcode(Opcode.FRETURN);
+        } else if (returnType.isPrimitive()) {
+            code.addOpcode(Opcode.IRETURN);
+        } else {
+            code.addOpcode(Opcode.ARETURN);
+        }
+    }
+
+    private static int accessOf(Method method) {
+        int modifiers = method.getModifiers();
+        int access = method.isVarArgs() ? AccessFlag.VARARGS : 0;
+        if (Modifier.isPublic(modifiers)) {
+            return access | AccessFlag.PUBLIC;
+        }
+        if (Modifier.isProtected(modifiers)) {
+            return access | AccessFlag.PROTECTED;
+        }
+        return access;
+    }
+
+    private static String proceedNameOf(int index, Method method) {
+        return PROCEED_METHOD_PREFIX + index + method.getName();
+    }
+
+    private static String signatureOf(Method method) {
+        return method.getName() + descriptorOf(method);
+    }
+
+    private static String descriptorOf(Method method) {
+        return MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    private static String descriptorOf(Class<?> type) {
+        return MethodType.methodType(type).toMethodDescriptorString().substring(2);
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    /**
+     * A method of the proxy class and the class or interface with the implementation that its proceed method invokes,
+     * null if there is no implementation.
+     */
+    private static final class ProxiedMethod {
+
+        final Method method;
+        final Class<?> implementation;
+        String proceedName;
+
+        ProxiedMethod(Method method, Class<?> implementation) {
+            this.method = method;
+            this.implementation = implementation;
+        }
+    }
+
+    /**
+     * Defines classes as hidden classes if the JVM supports it, otherwise as ordinary classes.
+     */
+    private static final class ClassDefiner {
+
+        private static final Object NO_OPTIONS;
+        private static final Method DEFINE_HIDDEN_CLASS;
+
+        static {
+            Object options = null;
+            Method defineHiddenClass = null;
+            try {
+                options = Array.newInstance(Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption"), 0);
+                defineHiddenClass = Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class,
+                        options.getClass());
+            } catch (ClassNotFoundException | NoSuchMethodException e) { // NOSONAR hidden classes are not supported.
+                LOG.debug("Hidden classes are not supported, proxy classes are defined as ordinary classes");
+            }
+            NO_OPTIONS = options;
+            DEFINE_HIDDEN_CLASS = defineHiddenClass;
+        }
+
+        private ClassDefiner() {
+            // hidden
+        }
+
+        /**
+         * @return a lookup with package access in the defined class.
+         */
+        static Lookup define(Lookup host, byte[] bytes) throws IllegalAccessException {
+            if (DEFINE_HIDDEN_CLASS != null && (host.lookupModes() & Lookup.MODULE) != 0) {
+                try {
+                    return (Lookup) DEFINE_HIDDEN_CLASS.invoke(host, bytes, true, NO_OPTIONS);
+                } catch (InvocationTargetException e) {
+                    throw rethrow(e.getCause());
+                }
+            }
+            return host.in(host.defineClass(bytes));
+        }
+
+        private static RuntimeException rethrow(Throwable cause) throws IllegalAccessException {
+            if (cause instanceof IllegalAccessException) {
+                throw (IllegalAccessException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return new ProxyException("Not able to define hidden class", cause);
+        }
+    }
+}
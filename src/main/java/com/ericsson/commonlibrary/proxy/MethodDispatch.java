@@ -0,0 +1,214 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Everything about a proxied method that can be resolved once per proxy class instead of once per call. Shared by all
+ * proxies of the same {@link ProxyClass}.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class MethodDispatch {
+
+    private static final MethodType PROCEED_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    /**
+     * The {@link InterceptableProxy} methods, that are handled by the proxy itself and never intercepted.
+     */
+    enum ControlMethod {
+        NONE, ADD_INTERCEPTOR, REMOVE_INTERCEPTOR, GET_INTERCEPTOR_LIST;
+
+        private static final MethodKey ADD_INTERCEPTOR_METHOD = MethodKey.of("addInterceptor", Interceptor.class);
+        private static final MethodKey REMOVE_INTERCEPTOR_METHOD = MethodKey.of("removeInterceptor", Interceptor.class);
+        private static final MethodKey GET_INTERCEPTOR_LIST_METHOD = MethodKey.of("getInterceptorList");
+
+        static ControlMethod of(MethodKey key) {
+            if (ADD_INTERCEPTOR_METHOD.equals(key)) {
+                return ADD_INTERCEPTOR;
+            }
+            if (REMOVE_INTERCEPTOR_METHOD.equals(key)) {
+                return REMOVE_INTERCEPTOR;
+            }
+            if (GET_INTERCEPTOR_LIST_METHOD.equals(key)) {
+                return GET_INTERCEPTOR_LIST;
+            }
+            return NONE;
+        }
+    }
+
+    private final Method method;
+    private final MethodKey key;
+    private final boolean withImplementation;
+    private final ControlMethod controlMethod;
+    private final boolean proceedWithHandle;
+    private volatile MethodHandle proceed;
+
+    MethodDispatch(Method method) {
+        this(method, false);
+    }
+
+    /**
+     * @param method
+     *            the proxied method.
+     * @param proceedWithHandle
+     *            true if proceed methods of the proxy class should be invoked through a method handle rather than by
+     *            reflection, which never gets past the slow native accessor for hidden classes.
+     */
+    MethodDispatch(Method method, boolean proceedWithHandle) {
+        this.method = method;
+        this.proceedWithHandle = proceedWithHandle;
+        this.key = MethodKey.of(method);
+        this.withImplementation = Util.isMethodWithImplementation(method);
+        this.controlMethod = ControlMethod.of(key);
+    }
+
+    /**
+     * @return the method that was intercepted.
+     */
+    Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the signature of the method that was intercepted.
+     */
+    MethodKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return true if there exists an original implementation that {@link #proceed(Object, Object[])} can invoke.
+     */
+    boolean isWithImplementation() {
+        return withImplementation;
+    }
+
+    /**
+     * @return which {@link InterceptableProxy} method this is, or {@link ControlMethod#NONE} for all other methods.
+     */
+    ControlMethod getControlMethod() {
+        return controlMethod;
+    }
+
+    /**
+     * Invokes the original implementation of the method.
+     *
+     * @param proceedMethod
+     *            the method of the proxy class that invokes the original implementation. Null for proxy classes without
+     *            such methods.
+     * @param target
+     *            the proxy
+     * @param args
+     *            arguments to the method
+     *
+     * @return the value returned by the original implementation.
+     *
+     * @throws Throwable
+     *             exceptions thrown by the original implementation, as is.
+     */
+    Object proceed(Method proceedMethod, Object target, Object[] args) throws Throwable {
+        if (proceedMethod != null && !proceedWithHandle) {
+            // A non constant method handle is not inlined, the generated accessor of a proceed method is.
+            try {
+                return proceedMethod.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        MethodHandle handle = proceed;
+        if (handle == null) {
+            handle = resolveProceed(proceedMethod);
+        }
+        return (Object) handle.invokeExact(target, args);
+    }
+
+    /**
+     * Resolves the handle used by {@link #proceed(Method, Object, Object[])} ahead of the first call.
+     *
+     * @param proceedMethod
+     *            the method of the proxy class that invokes the original implementation, or null.
+     *
+     * @return the resolved handle, or null if proceed methods are invoked by reflection.
+     */
+    MethodHandle resolveProceed(Method proceedMethod) {
+        MethodHandle handle = proceed;
+        if (handle == null && (proceedMethod == null || proceedWithHandle)) {
+            handle = proceedMethod == null ? toImplementationHandle(method) : toGenericHandle(proceedMethod);
+            proceed = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * Proxies created by {@link JdkProxyEngine} have no methods that invoke the original implementations. Default
+     * methods are invoked as by invokespecial from their interface, and the methods of {@link Object} are emulated
+     * since the JDK never lets them reach the implementation in Object.
+     */
+    private static MethodHandle toImplementationHandle(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        try {
+            if (declaringClass == Object.class) {
+                return MethodHandles.lookup().findStatic(MethodDispatch.class, "object" + method.getName(),
+                        PROCEED_TYPE);
+            }
+            MethodHandle special = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup())
+                    .unreflectSpecial(method, declaringClass);
+            return special.asFixedArity().asSpreader(Object[].class, method.getParameterCount()).asType(PROCEED_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ProxyException("No implementation to invoke for method: " + method, e);
+        }
+    }
+
+    @SuppressWarnings("unused") // found by name above.
+    private static Object objectequals(Object target, Object[] args) {
+        return target == args[0];
+    }
+
+    @SuppressWarnings("unused")
+    private static Object objecthashCode(Object target, Object[] args) {
+        return System.identityHashCode(target);
+    }
+
+    @SuppressWarnings("unused")
+    private static Object objecttoString(Object target, Object[] args) {
+        return JdkProxyEngine.nameOf(target.getClass()) + "@" + Integer.toHexString(target.hashCode());
+    }
+
+    /**
+     * Adapts a method to a handle with the type (Object target, Object[] args)Object.
+     */
+    static MethodHandle toGenericHandle(Method methodToAdapt) {
+        try {
+            methodToAdapt.setAccessible(true);
+            return MethodHandles.lookup().unreflect(methodToAdapt).asFixedArity()
+                    .asSpreader(Object[].class, methodToAdapt.getParameterCount()).asType(PROCEED_TYPE);
+        } catch (IllegalAccessException e) {
+            throw ProxyException.returnThisShouldNeverHappen("Not able to access method: " + methodToAdapt, e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The signature of a method: its name and erased parameter types. Return type and declaring class are not part of the
+ * signature, so methods that override or implement each other have equal keys.
+ * <p>
+ * Keys created with {@link #of(Method)} are interned per declaring class and the hash code is precomputed, so comparing
+ * and hashing keys never touches reflection. Keys are immutable and thread safe.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+public final class MethodKey {
+
+    private static final ClassValue<Map<Method, MethodKey>> KEYS = new ClassValue<Map<Method, MethodKey>>() {
+        @Override
+        protected Map<Method, MethodKey> computeValue(Class<?> declaringClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Map<MethodKey, Method>> METHODS = new ClassValue<Map<MethodKey, Method>>() {
+        @Override
+        protected Map<MethodKey, Method> computeValue(Class<?> classToIndex) {
+            Map<MethodKey, Method> index = new HashMap<>();
+            for (Method method : classToIndex.getMethods()) {
+                index.putIfAbsent(of(method), method);
+            }
+            for (Method method : classToIndex.getDeclaredMethods()) {
+                index.putIfAbsent(of(method), method);
+            }
+            return index;
+        }
+    };
+
+    private final String name;
+    private final Class<?>[] parameterTypes;
+    private final int hash;
+
+    private MethodKey(String name, Class<?>[] parameterTypes) {
+        this.name = name;
+        this.parameterTypes = parameterTypes;
+        this.hash = 31 * name.hashCode() + Arrays.hashCode(parameterTypes);
+    }
+
+    /**
+     * @param method
+     *            to get the signature of.
+     *
+     * @return the interned signature of the method.
+     */
+    public static MethodKey of(Method method) {
+        Map<Method, MethodKey> keys = KEYS.get(method.getDeclaringClass());
+        MethodKey key = keys.get(method);
+        if (key == null) {
+            key = new MethodKey(method.getName(), method.getParameterTypes());
+            MethodKey previous = keys.putIfAbsent(method, key);
+            if (previous != null) {
+                key = previous;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @param name
+     *            of the method.
+     * @param parameterTypes
+     *            of the method.
+     *
+     * @return a signature, not interned.
+     */
+    public static MethodKey of(String name, Class<?>... parameterTypes) {
+        return new MethodKey(name, parameterTypes.clone());
+    }
+
+    /**
+     * @return the method name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return a copy of the parameter types.
+     */
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes.clone();
+    }
+
+    /**
+     * @param method
+     *            to compare with.
+     *
+     * @return true if the method has this signature.
+     */
+    public boolean matches(Method method) {
+        return equals(of(method));
+    }
+
+    /**
+     * Finds a method with this signature, public methods (including inherited) are preferred over other methods
+     * declared in the class. The methods of each class are indexed once.
+     *
+     * @param classToLookIn
+     *            class to look for the method in.
+     *
+     * @return the method, or null if the class has no method with this signature.
+     */
+    Method findIn(Class<?> classToLookIn) {
+        return METHODS.get(classToLookIn).get(this);
+    }
+
+    /**
+     * @param loader
+     *            the class loader to check.
+     *
+     * @return true if all parameter types are visible from the class loader, so that caching this key in the scope of
+     *         the class loader does not keep any other class loader alive.
+     */
+    boolean isVisibleFrom(ClassLoader loader) {
+        for (Class<?> parameterType : parameterTypes) {
+            if (!ProxyClassCache.isVisibleFrom(parameterType, loader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MethodKey)) {
+            return false;
+        }
+        MethodKey other = (MethodKey) obj;
+        return hash == other.hash && name.equals(other.name) && Arrays.equals(parameterTypes, other.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(name).append('(');
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(parameterTypes[i].getTypeName());
+        }
+        return builder.append(')').toString();
+    }
+}
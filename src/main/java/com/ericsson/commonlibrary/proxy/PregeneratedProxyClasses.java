@@ -0,0 +1,211 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javassist.CtClass;
+import javassist.util.proxy.ProxyFactory;
+import javassist.util.proxy.ProxyFactory.UniqueName;
+import javassist.util.proxy.ProxyObject;
+
+/**
+ * Proxy classes generated at build time by {@link ProxyClassGenerator}, or written to the directory of
+ * {@value ProxyClassGenerator#DUMP_DIRECTORY_PROPERTY} at runtime. A pre-generated proxy class has a name that is
+ * derived from its shape (superclass and interfaces) and {@link #ENGINE_VERSION}, so the same shape can be found on the
+ * class path at runtime and used instead of generating a new class. The name has a 64 bit digest of the shape, and a
+ * class found by name is only used if it has exactly the shape. Since the name is the same on every start, the classes
+ * can also be archived with AppCDS.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class PregeneratedProxyClasses {
+
+    static final String NAME_SEPARATOR = "$$Proxy$";
+
+    /**
+     * Part of the names, so classes generated by another version of this library or of javassist are not found. Bump
+     * the first part when the generated proxy classes changes.
+     */
+    static final String ENGINE_VERSION = "1-" + CtClass.version;
+
+    private static final int DIGEST_BYTES = 8;
+
+    private PregeneratedProxyClasses() {
+        // hidden
+    }
+
+    /**
+     * @param superclass
+     *            the superclass of the proxy class, null for interface only proxies.
+     * @param interfaces
+     *            the ordered interfaces the proxy class implements.
+     *
+     * @return the name a pre-generated proxy class of the shape has, or null if the shape can't be pre-generated.
+     */
+    static String nameOf(Class<?> superclass, Class<?>[] interfaces) {
+        Class<?> owner = superclass != null ? superclass : interfaces[0];
+        if (owner.getName().startsWith("java.") || owner.isArray() || owner.isPrimitive()) {
+            return null; // not possible to define classes in java packages.
+        }
+        StringBuilder shape = new StringBuilder(ENGINE_VERSION).append(':');
+        if (superclass != null) {
+            shape.append(superclass.getName());
+        }
+        for (Class<?> inter : interfaces) {
+            shape.append(',').append(inter.getName());
+        }
+        return owner.getName() + NAME_SEPARATOR + digestOf(shape.toString());
+    }
+
+    private static String digestOf(String shape) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(shape.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) { // NOSONAR every Java platform has SHA-256.
+            throw new IllegalStateException(e);
+        }
+        StringBuilder hex = new StringBuilder(2 * DIGEST_BYTES);
+        for (int i = 0; i < DIGEST_BYTES; i++) {
+            hex.append(Character.forDigit((digest[i] >> 4) & 0xf, 16)).append(Character.forDigit(digest[i] & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @param superclass
+     *            the superclass of the proxy class, null for interface only proxies.
+     * @param interfaces
+     *            the ordered interfaces the proxy class implements.
+     *
+     * @return the pre-generated proxy class of the shape, or null if there is none.
+     */
+    static Class<?> load(Class<?> superclass, Class<?>[] interfaces) {
+        String name = nameOf(superclass, interfaces);
+        ClassLoader loader = (superclass != null ? superclass : interfaces[0]).getClassLoader();
+        if (name == null || loader == null) {
+            return null;
+        }
+        try {
+            Class<?> proxyClass = Class.forName(name, false, loader);
+            return isOfShape(proxyClass, superclass, interfaces) ? proxyClass : null;
+        } catch (ClassNotFoundException | LinkageError e) { // NOSONAR not pre-generated, the normal case.
+            return null;
+        }
+    }
+
+    /**
+     * Creates the proxy class with the name of its shape, and writes the class file to a directory.
+     *
+     * @param factory
+     *            a configured proxy factory.
+     * @param superclass
+     *            the superclass of the proxy class, null for interface only proxies.
+     * @param interfaces
+     *            the ordered interfaces the proxy class implements.
+     * @param outputDirectory
+     *            the directory, a class path root, where the class file is written.
+     *
+     * @return the created proxy class.
+     */
+    static Class<?> generate(ProxyFactory factory, Class<?> superclass, Class<?>[] interfaces, String outputDirectory) {
+        String name = nameOf(superclass, interfaces);
+        if (name == null) {
+            throw new ProxyException("Proxy classes of " + Arrays.asList(interfaces) + " can't be pre-generated");
+        }
+        factory.setUseCache(false);
+        factory.writeDirectory = outputDirectory;
+        return ShapeNames.createClass(factory, name);
+    }
+
+    /**
+     * @return the directory that proxy classes generated at runtime are written to, or null if they are not written.
+     */
+    static String dumpDirectory() {
+        return System.getProperty(ProxyClassGenerator.DUMP_DIRECTORY_PROPERTY);
+    }
+
+    /**
+     * Like {@link #generate(ProxyFactory, Class, Class[], String)} at runtime, where another thread may have defined
+     * the class of the same shape in between.
+     */
+    static Class<?> dump(ProxyFactory factory, Class<?> superclass, Class<?>[] interfaces, String outputDirectory) {
+        try {
+            return generate(factory, superclass, interfaces, outputDirectory);
+        } catch (RuntimeException e) {
+            Class<?> existing = load(superclass, interfaces);
+            if (existing == null) {
+                throw e;
+            }
+            return existing;
+        }
+    }
+
+    /**
+     * @return true if a proxy class has exactly the superclass and interfaces, and the javassist proxy interface.
+     */
+    static boolean isOfShape(Class<?> proxyClass, Class<?> superclass, Class<?>[] interfaces) {
+        Class<?> expectedSuperclass = superclass == null ? Object.class : superclass;
+        Set<Class<?>> expectedInterfaces = new HashSet<>(Arrays.asList(interfaces));
+        expectedInterfaces.add(ProxyObject.class); // added by javassist.
+        return proxyClass.getSuperclass() == expectedSuperclass
+                && new HashSet<>(Arrays.asList(proxyClass.getInterfaces())).equals(expectedInterfaces);
+    }
+
+    /**
+     * Javassist only lets the name of proxy classes be chosen with a global name generator. The generator installed
+     * here delegates to the original one unless a name is given for the current thread. It's installed the first time a
+     * class is generated with {@link ProxyClassGenerator}, or dumped at runtime with
+     * {@value ProxyClassGenerator#DUMP_DIRECTORY_PROPERTY} set. It then replaces the javassist name generator of the
+     * whole JVM, also for other users of javassist, until the JVM exits.
+     */
+    private static final class ShapeNames {
+
+        private static final ThreadLocal<String> NEXT_NAME = new ThreadLocal<>();
+
+        static {
+            UniqueName original = ProxyFactory.nameGenerator;
+            ProxyFactory.nameGenerator = classname -> {
+                String name = NEXT_NAME.get();
+                return name != null ? name : original.get(classname);
+            };
+        }
+
+        private ShapeNames() {
+            // hidden
+        }
+
+        static Class<?> createClass(ProxyFactory factory, String name) {
+            NEXT_NAME.set(name);
+            try {
+                return factory.createClass();
+            } finally {
+                NEXT_NAME.remove();
+            }
+        }
+    }
+}
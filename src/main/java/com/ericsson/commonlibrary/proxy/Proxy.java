@@ -21,6 +21,14 @@ package com.ericsson.commonlibrary.proxy;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.UnaryOperator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,15 +48,89 @@ public final class Proxy {
     }
 
     public static <T> ProxyFluent<T> with(Class<T> c) {
-        return new ProxyFluent<T>(c);
+        return new ProxyFluent<T>(getDefaultBackend(), c);
     }
 
     public static <T> ProxyFluent<T> with(Class<T> c, Object... constructorArguments) {
-        return new ProxyFluent<T>(c, constructorArguments);
+        return new ProxyFluent<T>(getDefaultBackend(), c, constructorArguments);
     }
 
     public static <T> ProxyFluent<T> with(T o) {
-        return new ProxyFluent<T>(o);
+        return new ProxyFluent<T>(getDefaultBackend(), o);
+    }
+
+    /**
+     * Same as {@link #with(Class)} but the proxy class is generated by a specific backend.
+     *
+     * @param <T>
+     *            target object type
+     * @param backend
+     *            that generates the proxy class.
+     * @param c
+     *            the class/interface to proxy.
+     *
+     * @return a fluent builder of the proxy.
+     */
+    public static <T> ProxyFluent<T> with(ProxyBackend backend, Class<T> c) {
+        return new ProxyFluent<T>(backend, c);
+    }
+
+    /**
+     * Same as {@link #with(Class, Object...)} but the proxy class is generated by a specific backend.
+     *
+     * @param <T>
+     *            target object type
+     * @param backend
+     *            that generates the proxy class.
+     * @param c
+     *            the class to proxy.
+     * @param constructorArguments
+     *            arguments to the constructor of the class.
+     *
+     * @return a fluent builder of the proxy.
+     *
+     * @throws ProxyException
+     *             if no constructor of the class matches the arguments, already by this method although the proxy is
+     *             created by {@link ProxyFluent#get()}.
+     */
+    public static <T> ProxyFluent<T> with(ProxyBackend backend, Class<T> c, Object... constructorArguments) {
+        return new ProxyFluent<T>(backend, c, constructorArguments);
+    }
+
+    /**
+     * Same as {@link #with(Object)} but the proxy class is generated by a specific backend. An object that already is a
+     * proxy keeps its proxy class.
+     *
+     * @param <T>
+     *            target object type
+     * @param backend
+     *            that generates the proxy class.
+     * @param o
+     *            the object to proxy.
+     *
+     * @return a fluent builder of the proxy.
+     */
+    public static <T> ProxyFluent<T> with(ProxyBackend backend, T o) {
+        return new ProxyFluent<T>(backend, o);
+    }
+
+    /**
+     * Sets the backend that generates the proxy classes of all proxies that are not created with a specific backend.
+     * The initial default is given by the system property {@value ProxyBackend#SYSTEM_PROPERTY}, or
+     * {@link ProxyBackend#JAVASSIST} if it's not set.
+     *
+     * @param backend
+     *            the new default backend.
+     */
+    public static void setDefaultBackend(ProxyBackend backend) {
+        InterceptableProxyFactory.setDefaultBackend(backend);
+    }
+
+    /**
+     * @return the backend that generates the proxy classes of all proxies that are not created with a specific backend.
+     */
+    public static ProxyBackend getDefaultBackend() {
+        return InterceptableProxyFactory.getDefaultBackend();
     }
 
     /**
@@ -215,6 +297,82 @@ public final class Proxy {
         }
     }
 
+    /**
+     * Puts an interceptor in a category, so it can be switched off at runtime like the built-in timer, MDC and
+     * recursive interceptors. See {@link #setInterceptionEnabled(InterceptorCategory, boolean)}.
+     *
+     * @param category
+     *            the category of the interceptor, typically {@link InterceptorCategory#OPTIONAL}.
+     * @param interceptor
+     *            the interceptor to categorize.
+     *
+     * @return an interceptor to add instead of the categorized one.
+     */
+    public static Interceptor inCategory(InterceptorCategory category, Interceptor interceptor) {
+        return new InterceptorCategorized(category, interceptor);
+    }
+
+    /**
+     * Creates a scope that activates interceptors only in the threads inside it, for example to profile a single
+     * request. Other threads skip the interceptors bound to it. See {@link InterceptionScope}.
+     *
+     * @return a new scope.
+     */
+    public static InterceptionScope newInterceptionScope() {
+        return new InterceptionScope();
+    }
+
+    /**
+     * Switches all non-essential interception, the interceptors with a {@link InterceptorCategory}, off or on again in
+     * all proxies. Switched off interceptors stay in their proxies but are skipped, a proxy that has only them left
+     * calls the original method or the object it delegates to directly. It's meant for emergencies, like a latency
+     * incident, since switching makes the JVM recompile the code of the proxies.
+     *
+     * @param enabled
+     *            false to switch off, true to switch on.
+     */
+    public static void setInterceptionEnabled(boolean enabled) {
+        InterceptionSwitch.setEnabled(InterceptionSwitch.ALL, enabled);
+    }
+
+    /**
+     * Same as {@link #setInterceptionEnabled(boolean)} but for the interceptors of one category.
+     *
+     * @param category
+     *            the category to switch.
+     * @param enabled
+     *            false to switch off, true to switch on.
+     */
+    public static void setInterceptionEnabled(InterceptorCategory category, boolean enabled) {
+        InterceptionSwitch.setEnabled(category.bit(), enabled);
+    }
+
+    /**
+     * @param category
+     *            a category of interceptors.
+     *
+     * @return false if the interceptors of the category are switched off in all proxies.
+     */
+    public static boolean isInterceptionEnabled(InterceptorCategory category) {
+        return InterceptionSwitch.isEnabled(category);
+    }
+
+    /**
+     * Switches the interceptors with a {@link InterceptorCategory} off or on again in one proxy, regardless of the
+     * categories switched off in all proxies. Interceptors added to the proxy while it's switched off are switched off
+     * too.
+     *
+     * @param proxy
+     *            a proxy.
+     * @param enabled
+     *            false to switch off, true to switch on.
+     *
+     * @return true if the interceptors of the proxy were switched on before.
+     */
+    public static boolean setProxyInterceptionEnabled(Object proxy, boolean enabled) {
+        return !InterceptableProxyFactory.setSwitchedOff(proxy, !enabled);
+    }
+
     /**
      * Let's you add a interceptor to a existing object. It's possible to specify which methods the inteceptor should
      * intercept and if no method is specified all methods will be intercepted.
@@ -239,13 +397,80 @@ public final class Proxy {
     }
 
     private static <T> void addMethodInterceptor(T proxy, Interceptor interceptor, Method... methodsToIntercept) {
-        Interceptor interceptorToAdd = interceptor;
+        addInterceptor(proxy, methodInterceptor(interceptor, methodsToIntercept));
+    }
 
+    static Interceptor methodInterceptor(Interceptor interceptor, Method... methodsToIntercept) {
         // if it should be a method interceptor
         if (methodsToIntercept != null && methodsToIntercept.length != 0) {
-            interceptorToAdd = new InterceptorMethod(interceptor, methodsToIntercept);
+            return new InterceptorMethod(interceptor, methodsToIntercept);
+        }
+        return interceptor;
+    }
+
+    /**
+     * Adds an interceptor to every object of a collection, like {@link #intercept(Object, Interceptor, Method...)} does
+     * for one object. The proxy class is resolved once per class of the objects instead of once per object, which makes
+     * it the faster way to proxy many objects.
+     *
+     * @param <T>
+     *            target object type
+     * @param objectsToIntercept
+     *            the objects you want to add a interceptor to, null elements stay null.
+     * @param interceptor
+     *            the interceptor you want to add.
+     *
+     * @return a fixed size list with the proxies, in the iteration order of the collection.
+     */
+    public static <T> List<T> interceptAll(Collection<? extends T> objectsToIntercept, Interceptor interceptor) {
+        return interceptAll(objectsToIntercept, interceptor, false);
+    }
+
+    /**
+     * Same as {@link #interceptAll(Collection, Interceptor)}, but the proxies can be created in parallel in the common
+     * fork join pool. Only worth it for large collections.
+     *
+     * @param <T>
+     *            target object type
+     * @param objectsToIntercept
+     *            the objects you want to add a interceptor to, null elements stay null.
+     * @param interceptor
+     *            the interceptor you want to add.
+     * @param parallel
+     *            true to create the proxies in parallel.
+     *
+     * @return a fixed size list with the proxies, in the iteration order of the collection.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> interceptAll(Collection<? extends T> objectsToIntercept, Interceptor interceptor,
+            boolean parallel) {
+        UnaryOperator<T> creator = intercepting(interceptor);
+        Object[] proxies = objectsToIntercept.toArray();
+        if (parallel) {
+            Arrays.parallelSetAll(proxies, i -> creator.apply((T) proxies[i]));
+        } else {
+            for (int i = 0; i < proxies.length; i++) {
+                proxies[i] = creator.apply((T) proxies[i]);
+            }
         }
-        addInterceptor(proxy, interceptorToAdd);
+        return (List<T>) Arrays.asList(proxies);
+    }
+
+    /**
+     * A function that adds an interceptor to the objects it's applied to, like
+     * {@link #interceptAll(Collection, Interceptor)} does, for streams:
+     * <code>orders.stream().map(Proxy.intercepting(interceptor))</code>. The function resolves the proxy class once per
+     * class of the objects and can be used by parallel streams.
+     *
+     * @param <T>
+     *            target object type
+     * @param interceptor
+     *            the interceptor you want to add.
+     *
+     * @return a function that returns a proxy of the object it's applied to, or null for null.
+     */
+    public static <T> UnaryOperator<T> intercepting(Interceptor interceptor) {
+        return InterceptableProxyFactory.createObjectProxyCreator(interceptor);
     }
 
     /**
@@ -355,6 +580,60 @@ public final class Proxy {
         return proxy;
     }
 
+    /**
+     * Generates and caches the proxy classes of types that will be proxied later, so the first proxies of the types do
+     * not have to wait for class generation. Also resolves what the first proxies would otherwise resolve: the
+     * constructors, the objenesis instantiator, the method dispatch and the delegate methods used by
+     * {@link #with(Object)}.
+     *
+     * @param types
+     *            classes and interfaces that will be proxied.
+     *
+     * @return the time it took to prewarm each type, in the order of the types.
+     *
+     * @throws ProxyException
+     *             if a type can't be proxied.
+     */
+    public static Map<Class<?>, Duration> prewarm(Class<?>... types) {
+        return ProxyWarmUp.prewarm(types);
+    }
+
+    /**
+     * Same as {@link #prewarm(Class...)} but the types are prewarmed in parallel by an executor, typically while the
+     * application is starting.
+     *
+     * @param executor
+     *            that prewarms the types, one task per type.
+     * @param types
+     *            classes and interfaces that will be proxied.
+     *
+     * @return the time it took to prewarm each type, in the order of the types. Completes exceptionally with a
+     *         {@link ProxyException} if a type can't be proxied.
+     */
+    public static CompletableFuture<Map<Class<?>, Duration>> prewarmAsync(Executor executor, Class<?>... types) {
+        return ProxyWarmUp.prewarmAsync(executor, false, types);
+    }
+
+    /**
+     * Same as {@link #prewarmAsync(Executor, Class...)} but can also warm up the dispatch path that all proxies share,
+     * by calling proxies of a class internal to the library some thousand times. It's done once per JVM, in a separate
+     * task.
+     *
+     * @param executor
+     *            that prewarms the types, one task per type.
+     * @param warmUpDispatchPath
+     *            true to also warm up the dispatch path.
+     * @param types
+     *            classes and interfaces that will be proxied.
+     *
+     * @return the time it took to prewarm each type, in the order of the types. Completes exceptionally with a
+     *         {@link ProxyException} if a type can't be proxied.
+     */
+    public static CompletableFuture<Map<Class<?>, Duration>> prewarmAsync(Executor executor, boolean warmUpDispatchPath,
+            Class<?>... types) {
+        return ProxyWarmUp.prewarmAsync(executor, warmUpDispatchPath, types);
+    }
+
     private static <T> void addInterceptor(T proxy, Interceptor interceptor) {
         Proxy.getProxyInterface(proxy).addInterceptor(interceptor);
     }
@@ -0,0 +1,76 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+/**
+ * The backends that generate the classes of proxies. The backend of a proxy is chosen with
+ * {@link Proxy#with(ProxyBackend, Class)} and its overloads, the other proxies use the default backend that is set with
+ * {@link Proxy#setDefaultBackend(ProxyBackend)} or with the system property {@value #SYSTEM_PROPERTY}, for example
+ * {@code -Dcom.ericsson.commonlibrary.proxy.backend=lookup}.
+ * <p>
+ * Proxy classes that a backend is not able to generate are generated by {@link #JAVASSIST}.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+public enum ProxyBackend {
+
+    /**
+     * Generates proxy classes with the javassist proxy factory. It's the default backend and the only one that can use
+     * proxy classes generated at build time by {@link ProxyClassGenerator}.
+     */
+    JAVASSIST(new JavassistProxyEngine()),
+
+    /**
+     * Generates the bytecode of proxy classes directly, and defines them in the package of the proxied class with a
+     * {@link java.lang.invoke.MethodHandles.Lookup}. On Java 15 and later they are hidden classes, that can be unloaded
+     * independently of their class loader. Classes in packages that are not open to this library, like the classes of
+     * the JDK, are proxied by {@link #JAVASSIST}.
+     */
+    LOOKUP(new LookupProxyEngine()),
+
+    /**
+     * Proxies interfaces with {@link java.lang.reflect.Proxy}, for example the proxies of {@link Proxy#with(Class)}
+     * with an interface, {@link Proxy#changeInterface(Class, Object)} and {@link Proxy#javaBean(Class)}. The JDK
+     * defines and caches the proxy classes, which makes it the cheapest backend for proxies of many different
+     * interfaces. Proxies with a superclass, and interfaces with default methods in packages that are not open to this
+     * library, are proxied by {@link #JAVASSIST}.
+     * <p>
+     * Unlike the other backends, a checked exception that an interceptor throws and the method does not declare is
+     * wrapped in an {@link java.lang.reflect.UndeclaredThrowableException} by the JDK proxy class.
+     */
+    JDK(new JdkProxyEngine());
+
+    /**
+     * System property with the name of the default backend.
+     */
+    public static final String SYSTEM_PROPERTY = "com.ericsson.commonlibrary.proxy.backend";
+
+    private final ProxyEngine engine;
+
+    ProxyBackend(ProxyEngine engine) {
+        this.engine = engine;
+    }
+
+    ProxyEngine getEngine() {
+        return engine;
+    }
+}
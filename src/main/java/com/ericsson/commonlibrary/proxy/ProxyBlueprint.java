@@ -0,0 +1,99 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+/**
+ * A frozen proxy configuration that creates many proxies of it, created by {@link ProxyFluent#blueprint()}:
+ *
+ * <pre>
+ * ProxyBlueprint&lt;Service&gt; blueprint = Proxy.with(Service.class).interceptAll(logging).blueprint();
+ * Service service = blueprint.newInstance();
+ * Service wrapped = blueprint.wrap(serviceImpl);
+ * </pre>
+ *
+ * The proxy class, the dispatch of its methods and its instantiator are resolved once when the blueprint is created,
+ * and all proxies share the same immutable interceptor chain. Creating a proxy is then an instantiation of the proxy
+ * class. Interceptors added with {@link ProxyFluent#interceptAllPerInstance(java.util.function.Supplier)} are supplied
+ * for each proxy. Every proxy is its own {@link InterceptableProxy}, interceptors added to one proxy are not added to
+ * the others. Thread safe.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ *
+ * @param <T>
+ *            the type of the proxies.
+ */
+public final class ProxyBlueprint<T> {
+
+    private final InterceptableProxyFactory factory;
+    private final ProxyClass proxyClass;
+    private final InterceptorChain chain;
+    // ends with the delegation to the wrapped object, shared by all proxies of wrap().
+    private final InterceptorChain wrappingChain;
+    private final Class<?> type;
+    private final T object;
+
+    ProxyBlueprint(InterceptableProxyFactory factory, InterceptorChain chain, Class<?> type, T object) {
+        this.factory = factory;
+        this.chain = chain;
+        this.wrappingChain = chain.then(InterceptorDelegator.WRAPPED);
+        this.type = type;
+        this.object = object;
+        try {
+            this.proxyClass = factory.prewarm();
+        } catch (ProxyException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ProxyException("Not able to create a blueprint of: " + type.getName(), e);
+        }
+    }
+
+    /**
+     * @return a new proxy, like {@link ProxyFluent#get()} would create. A blueprint of an object creates a new proxy of
+     *         the same object, or adds the interceptors to it again if it already is a proxy.
+     */
+    public T newInstance() {
+        if (object != null) {
+            return wrap(object);
+        }
+        return factory.build(proxyClass, chain);
+    }
+
+    /**
+     * Creates a new proxy that delegates to a target object after the interceptors. The proxy is created without
+     * calling a constructor. A target that already is a proxy gets the interceptors added instead, like by
+     * {@link ProxyFluent#get()}.
+     *
+     * @param target
+     *            an instance of the class or interface of the blueprint.
+     *
+     * @return a new proxy of the target, or the target if it already is a proxy.
+     */
+    public T wrap(T target) {
+        if (!type.isInstance(target)) {
+            throw new ProxyException("The target: " + target + " is not a: " + type.getName());
+        }
+        if (factory.addToExistingProxy(target, chain)) {
+            return target;
+        }
+        return factory.buildWrapping(target, proxyClass, wrappingChain);
+    }
+}
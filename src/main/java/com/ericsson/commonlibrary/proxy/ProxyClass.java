@@ -0,0 +1,363 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
+import org.objenesis.instantiator.sun.UnsafeFactoryInstantiator;
+
+import javassist.util.proxy.MethodHandler;
+import javassist.util.proxy.ProxyObject;
+
+/**
+ * A generated proxy class together with what is needed to create instances of it. Instances of this class are shared by
+ * all proxies of the same shape, see {@link ProxyClassCache}.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class ProxyClass {
+
+    // Instantiators are cached per proxy class below, so objenesis own cache is not needed.
+    private static final Objenesis OBJENESIS = new ObjenesisStd(false);
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType DEFAULT_CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final String PROCEED_METHOD_PREFIX = "_d";
+
+    private final Class<?> type;
+    private final boolean jdkProxy;
+    private final boolean hidden;
+    private MethodHandle defaultConstructor;
+    private volatile boolean defaultConstructorResolved;
+    private volatile ObjectInstantiator<?> instantiator;
+    private final Map<List<Class<?>>, MethodHandle> constructors = new ConcurrentHashMap<>();
+    private final Map<Method, MethodDispatch> dispatchTable = new ConcurrentHashMap<>();
+
+    ProxyClass(Class<?> type) {
+        this.type = type;
+        this.jdkProxy = JdkProxyEngine.isProxyClass(type);
+        this.hidden = isHidden(type);
+    }
+
+    /**
+     * @return the generated proxy class.
+     */
+    Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return true if the proxy class has a public empty constructor that {@link #newInstance(MethodHandler)} can use,
+     *         or is a {@link java.lang.reflect.Proxy} class.
+     */
+    boolean hasDefaultConstructor() {
+        return getDefaultConstructor() != null;
+    }
+
+    /**
+     * Creates a new proxy instance with the public empty constructor of the proxy class.
+     *
+     * @param handler
+     *            the method handler that the new proxy should use.
+     *
+     * @return the new proxy instance.
+     *
+     * @throws NoSuchMethodException
+     *             if the proxy class does not have a public empty constructor.
+     */
+    Object newInstance(MethodHandler handler)
+            throws NoSuchMethodException, InstantiationException, IllegalAccessException, InvocationTargetException {
+        MethodHandle constructor = getDefaultConstructor();
+        if (constructor == null) {
+            throw new NoSuchMethodException(type.getName() + ".<init>()");
+        }
+        try {
+            if (jdkProxy) {
+                return JdkProxyEngine.newInstance(constructor, handler);
+            }
+            return withHandler((Object) constructor.invokeExact(), handler);
+        } catch (Throwable t) { // NOSONAR thrown as by Constructor.newInstance
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Creates a new proxy instance with the constructor matching the arguments. The constructor is resolved once per
+     * combination of argument types, unless an argument type is not visible from the class loader of the proxy class.
+     * Remembering it would keep the class loader of the argument alive as long as the proxy class.
+     *
+     * @param handler
+     *            the method handler that the new proxy should use.
+     * @param args
+     *            arguments to the constructor.
+     *
+     * @return the new proxy instance.
+     *
+     * @throws ProxyException
+     *             if no public constructor matches the arguments.
+     * @throws InvocationTargetException
+     *             if the constructor throws an exception.
+     */
+    Object newInstance(MethodHandler handler, Object[] args) throws InvocationTargetException {
+        Class<?>[] argTypes = new Class<?>[args.length];
+        boolean cacheable = true;
+        for (int i = 0; i < args.length; i++) {
+            argTypes[i] = args[i] == null ? null : args[i].getClass();
+            cacheable &= argTypes[i] == null || ProxyClassCache.isVisibleFrom(argTypes[i], type.getClassLoader());
+        }
+        List<Class<?>> key = Arrays.asList(argTypes);
+        MethodHandle constructor = constructors.get(key);
+        if (constructor == null) {
+            constructor = toGenericHandle(findConstructor(args));
+            if (cacheable) {
+                constructors.putIfAbsent(key, constructor);
+            }
+        }
+        Object proxy;
+        try {
+            proxy = (Object) constructor.invokeExact(args);
+        } catch (Throwable t) { // NOSONAR thrown as by Constructor.newInstance
+            throw new InvocationTargetException(t);
+        }
+        return withHandler(proxy, handler);
+    }
+
+    /**
+     * Creates a new proxy instance without calling any constructor, using objenesis. The objenesis instantiator is
+     * resolved the first time and reused for all following instances of the proxy class.
+     *
+     * @param handler
+     *            the method handler that the new proxy should use.
+     *
+     * @return the new proxy instance.
+     */
+    Object newInstanceWithoutConstructor(MethodHandler handler) {
+        return withHandler(getInstantiator().newInstance(), handler);
+    }
+
+    /**
+     * @param method
+     *            a method of the proxy class, as passed to the method handler.
+     *
+     * @return the dispatch information of the method, resolved once per proxy class.
+     */
+    MethodDispatch getDispatch(Method method) {
+        MethodDispatch dispatch = dispatchTable.get(method);
+        if (dispatch == null) {
+            dispatch = dispatchTable.computeIfAbsent(method, m -> new MethodDispatch(m, hidden));
+        }
+        return dispatch;
+    }
+
+    /**
+     * Resolves what the first proxies of this class would otherwise resolve: the empty constructor, the objenesis
+     * instantiator and the dispatch of the proxied methods, including the handles that invoke the original
+     * implementations.
+     *
+     * @param isHandled
+     *            the method filter that the proxy class was generated with.
+     *
+     * @return the dispatch of the proxied methods.
+     */
+    List<MethodDispatch> prewarm(Predicate<Method> isHandled) {
+        getDefaultConstructor();
+        if (!jdkProxy) { // always created with the constructor.
+            getInstantiator();
+        }
+        Map<MethodKey, MethodDispatch> dispatches = new LinkedHashMap<>();
+        for (Method proceedMethod : type.getDeclaredMethods()) {
+            Method method = findProceededMethod(proceedMethod);
+            if (method != null && isHandled.test(method)) {
+                MethodDispatch dispatch = getDispatch(method);
+                dispatch.resolveProceed(proceedMethod);
+                dispatches.put(dispatch.getKey(), dispatch);
+            }
+        }
+        for (Class<?> inter : type.getInterfaces()) {
+            if (inter == ProxyObject.class) {
+                continue;
+            }
+            for (Method method : inter.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()) && isHandled.test(method)
+                        && !dispatches.containsKey(MethodKey.of(method))) {
+                    MethodDispatch dispatch = getDispatch(method);
+                    dispatches.put(dispatch.getKey(), dispatch);
+                }
+            }
+        }
+        return new ArrayList<>(dispatches.values());
+    }
+
+    /**
+     * Javassist names the method that invokes the original implementation of a proxied method "_d" followed by an index
+     * and the name of the proxied method.
+     *
+     * @return the proxied method of a proceed method, or null if it's not a proceed method.
+     */
+    private Method findProceededMethod(Method proceedMethod) {
+        String name = proceedMethod.getName();
+        if (!name.startsWith(PROCEED_METHOD_PREFIX) || findInSuperclasses(MethodKey.of(proceedMethod)) != null) {
+            return null; // an overriding method, even if it's named like a proceed method.
+        }
+        int index = PROCEED_METHOD_PREFIX.length();
+        while (index < name.length() && Character.isDigit(name.charAt(index))) {
+            index++;
+        }
+        if (index == PROCEED_METHOD_PREFIX.length() || index == name.length()) {
+            return null;
+        }
+        return findInSuperclasses(MethodKey.of(name.substring(index), proceedMethod.getParameterTypes()));
+    }
+
+    private Method findInSuperclasses(MethodKey key) {
+        for (Class<?> current = type.getSuperclass(); current != null; current = current.getSuperclass()) {
+            Method method = key.findIn(current);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private ObjectInstantiator<?> getInstantiator() {
+        ObjectInstantiator<?> current = instantiator;
+        if (current == null) {
+            current = hidden ? new UnsafeFactoryInstantiator<>(type) : OBJENESIS.getInstantiatorOf(type);
+            instantiator = current;
+        }
+        return current;
+    }
+
+    /**
+     * The standard objenesis instantiator refers to the instantiated class by name, which is not possible for hidden
+     * classes. The name of a hidden class is the only kind of class name that contains a '/'.
+     */
+    private static boolean isHidden(Class<?> type) {
+        return type.getName().indexOf('/') >= 0;
+    }
+
+    private Constructor<?> findConstructor(Object[] args) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (isMatching(constructor.getParameterTypes(), args)) {
+                return constructor;
+            }
+        }
+        throw noMatchingConstructor(args);
+    }
+
+    /**
+     * Checks that a class to proxy has a constructor that the proxy class will have, matching the arguments. Lets the
+     * arguments be checked before the proxy class is generated.
+     *
+     * @param superclass
+     *            the class to proxy.
+     * @param args
+     *            arguments to the constructor.
+     *
+     * @throws ProxyException
+     *             if no constructor that is not private matches the arguments.
+     */
+    static void checkConstructorMatching(Class<?> superclass, Object[] args) {
+        for (Constructor<?> constructor : superclass.getDeclaredConstructors()) {
+            if (!Modifier.isPrivate(constructor.getModifiers()) && isMatching(constructor.getParameterTypes(), args)) {
+                return;
+            }
+        }
+        throw noMatchingConstructor(args);
+    }
+
+    private static ProxyException noMatchingConstructor(Object[] args) {
+        return new ProxyException(
+                "Did not find any constructor matching the provided arguments: " + Arrays.asList(args));
+    }
+
+    private static boolean isMatching(Class<?>[] parameterTypes, Object[] args) {
+        if (parameterTypes.length != args.length) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (args[i] == null) {
+                if (parameterTypes[i].isPrimitive()) {
+                    return false; // null can't be unboxed.
+                }
+            } else if (!wrap(parameterTypes[i]).isInstance(args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static MethodHandle toGenericHandle(Constructor<?> constructor) {
+        try {
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asFixedArity()
+                    .asSpreader(Object[].class, constructor.getParameterCount()).asType(CONSTRUCTOR_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new ProxyException("Not able to access constructor: " + constructor, e);
+        }
+    }
+
+    // A method handle rather than Constructor.newInstance, since reflection on hidden proxy classes never gets past the
+    // slow native accessor.
+    private MethodHandle getDefaultConstructor() {
+        if (!defaultConstructorResolved) {
+            try {
+                defaultConstructor = jdkProxy ? JdkProxyEngine.findConstructor(type) : MethodHandles.lookup()
+                        .unreflectConstructor(type.getConstructor()).asType(DEFAULT_CONSTRUCTOR_TYPE);
+            } catch (NoSuchMethodException e) { // NOSONAR remembered as a missing constructor.
+                defaultConstructor = null;
+            } catch (IllegalAccessException e) {
+                throw new ProxyException("Not able to access constructor of: " + type, e);
+            }
+            defaultConstructorResolved = true;
+        }
+        return defaultConstructor;
+    }
+
+    static Object withHandler(Object proxy, MethodHandler handler) {
+        ((ProxyObject) proxy).setHandler(handler);
+        return proxy;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of generated proxy classes keyed by their shape, which is the superclass together with the ordered set of
+ * interfaces the proxy class implements, and the {@link ProxyBackend} that generated them. All proxy classes are
+ * generated with the same method filter so it's not part of the key.
+ * <p>
+ * The shapes are stored in a {@link ClassValue} of the class that owns the shape (the superclass or, for interface only
+ * proxies, the first interface), so a cached proxy class never outlives the class it was generated for. Owners whose
+ * class loader can't see this library (typically JDK classes) have their shapes stored in this class instead, so they
+ * never outlive this library. A shape is only cached when all of its classes and the generated proxy class are visible
+ * from the class loader of the scope it is stored in, otherwise the cache could keep a class loader alive that should
+ * be possible to unload. The number of cached shapes per owning class is bounded by {@value #MAX_SHAPES_PER_CLASS}, the
+ * least recently used shape of the owner is evicted when another one is added.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class ProxyClassCache {
+
+    static final int MAX_SHAPES_PER_CLASS = 64;
+
+    private static final ClassValue<Shapes> SHAPES = new ClassValue<Shapes>() {
+
+        @Override
+        protected Shapes computeValue(Class<?> type) {
+            return new Shapes();
+        }
+    };
+
+    private static final Map<Class<?>, Shapes> LIBRARY_SCOPED_SHAPES = new ConcurrentHashMap<>();
+    private static final ClassLoader LIBRARY_CLASS_LOADER = InterceptableProxy.class.getClassLoader();
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private ProxyClassCache() {
+        // hidden
+    }
+
+    /**
+     * Get the proxy class for a shape. The generator is only called if the shape was not found in the cache.
+     *
+     * @param backend
+     *            the backend that generates the proxy class.
+     * @param superclass
+     *            the superclass of the proxy class, null for interface only proxies.
+     * @param interfaces
+     *            the ordered interfaces the proxy class implements.
+     * @param generator
+     *            generates a new proxy class for the shape.
+     *
+     * @return the proxy class of the shape.
+     */
+    static ProxyClass get(ProxyBackend backend, Class<?> superclass, Class<?>[] interfaces,
+            Supplier<Class<?>> generator) {
+        Class<?> owner = ownerOf(superclass, interfaces);
+        ClassLoader scope = scopeOf(owner);
+        Shapes shapes = shapesOf(owner, scope);
+        if (shapes == null) {
+            MISSES.increment();
+            return new ProxyClass(generator.get());
+        }
+        List<Object> key = new ArrayList<>(interfaces.length + 1);
+        key.add(backend);
+        key.addAll(Arrays.asList(interfaces));
+        ProxyClass proxyClass = shapes.get(key);
+        if (proxyClass != null) {
+            HITS.increment();
+            return proxyClass;
+        }
+        MISSES.increment();
+        proxyClass = new ProxyClass(generator.get());
+        if (isCacheable(scope, superclass, interfaces, proxyClass.getType())) {
+            ProxyClass existing = shapes.putIfAbsent(key, proxyClass);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return proxyClass;
+    }
+
+    /**
+     * @return number of times a proxy class was found in the cache.
+     */
+    static long hitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return number of times a proxy class had to be generated.
+     */
+    static long missCount() {
+        return MISSES.sum();
+    }
+
+    private static Class<?> ownerOf(Class<?> superclass, Class<?>[] interfaces) {
+        if (superclass == null) {
+            return interfaces[0];
+        }
+        return superclass;
+    }
+
+    private static ClassLoader scopeOf(Class<?> owner) {
+        ClassLoader ownerLoader = owner.getClassLoader();
+        if (isVisibleFrom(InterceptableProxy.class, ownerLoader)) {
+            return ownerLoader;
+        }
+        return LIBRARY_CLASS_LOADER;
+    }
+
+    private static Shapes shapesOf(Class<?> owner, ClassLoader scope) {
+        if (scope == owner.getClassLoader()) {
+            return SHAPES.get(owner);
+        }
+        if (!isVisibleFrom(owner, scope)) {
+            return null; // not possible to cache without keeping the owner alive.
+        }
+        return LIBRARY_SCOPED_SHAPES.computeIfAbsent(owner, o -> new Shapes());
+    }
+
+    private static boolean isCacheable(ClassLoader scope, Class<?> superclass, Class<?>[] interfaces,
+            Class<?> proxyClass) {
+        if (superclass != null && !isVisibleFrom(superclass, scope) || !isVisibleFrom(proxyClass, scope)) {
+            return false;
+        }
+        for (Class<?> inter : interfaces) {
+            if (!isVisibleFrom(inter, scope)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A class is visible from a class loader if it was loaded by that class loader or one of its parents.
+     */
+    static boolean isVisibleFrom(Class<?> clazz, ClassLoader loader) {
+        ClassLoader classLoader = clazz.getClassLoader();
+        if (classLoader == null) {
+            return true; // bootstrap classes are visible from all class loaders.
+        }
+        for (ClassLoader current = loader; current != null; current = current.getParent()) {
+            if (current == classLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The cached shapes of one owning class. Each use is stamped from a counter of the owner, so the least recently
+     * used shape can be found when the owner is full. Lookups don't lock, only adding a shape does.
+     */
+    private static final class Shapes {
+
+        private final Map<List<Object>, CachedShape> cached = new ConcurrentHashMap<>();
+        private final AtomicLong clock = new AtomicLong();
+
+        ProxyClass get(List<Object> key) {
+            CachedShape shape = cached.get(key);
+            if (shape == null) {
+                return null;
+            }
+            shape.lastUsed = clock.incrementAndGet();
+            return shape.proxyClass;
+        }
+
+        /**
+         * @return the proxy class already cached for the shape, or null if the given one was added.
+         */
+        synchronized ProxyClass putIfAbsent(List<Object> key, ProxyClass proxyClass) {
+            ProxyClass existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (cached.size() >= MAX_SHAPES_PER_CLASS) {
+                evictLeastRecentlyUsed();
+            }
+            cached.put(key, new CachedShape(proxyClass, clock.incrementAndGet()));
+            return null;
+        }
+
+        private void evictLeastRecentlyUsed() {
+            List<Object> eldest = null;
+            long eldestUse = Long.MAX_VALUE;
+            for (Map.Entry<List<Object>, CachedShape> entry : cached.entrySet()) {
+                if (entry.getValue().lastUsed < eldestUse) {
+                    eldest = entry.getKey();
+                    eldestUse = entry.getValue().lastUsed;
+                }
+            }
+            if (eldest != null) {
+                cached.remove(eldest);
+            }
+        }
+    }
+
+    private static final class CachedShape {
+
+        private final ProxyClass proxyClass;
+        private volatile long lastUsed;
+
+        CachedShape(ProxyClass proxyClass, long lastUsed) {
+            this.proxyClass = proxyClass;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.io.File;
+
+/**
+ * Generates proxy classes at build time, so they don't have to be generated when the application starts. The generated
+ * class files are written to a class path directory, typically target/classes, where the library finds them at runtime.
+ * Shapes that was not generated at build time are still generated at runtime.
+ * <p>
+ * Usage: <code>ProxyClassGenerator &lt;outputDirectory&gt; &lt;type&gt;...</code> where each type is the fully
+ * qualified name of a class or interface that will be proxied with for example {@link Proxy#with(Class)},
+ * {@link Proxy#with(Object)} or {@link Proxy#intercept(Class, Interceptor, java.lang.reflect.Method...)}. Prefix the
+ * type with <code>javabean:</code> for types used with {@link Proxy#javaBean(Class)}, then the class with the
+ * additional set methods is generated as well.
+ * <p>
+ * The generated classes must be regenerated when the types changes, which happens automatically when it's part of the
+ * build. See the site documentation for how to run it with the exec-maven-plugin.
+ * <p>
+ * The classes can also be written while the application runs, by setting the system property
+ * {@value #DUMP_DIRECTORY_PROPERTY} to a directory. All proxy classes that the {@link ProxyBackend#JAVASSIST} backend
+ * generates are then written there, ready to be put on the class path and archived with AppCDS.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+public final class ProxyClassGenerator {
+
+    /**
+     * System property with a directory that proxy classes generated at runtime are written to. Since javassist only
+     * lets proxy classes be named with its global {@link javassist.util.proxy.ProxyFactory#nameGenerator}, the first
+     * dumped class replaces that generator for the whole JVM. It still names the classes of other javassist users as
+     * before, but they should not set their own generator while dumping.
+     */
+    public static final String DUMP_DIRECTORY_PROPERTY = "com.ericsson.commonlibrary.proxy.dumpDirectory";
+
+    static final String JAVA_BEAN_PREFIX = "javabean:";
+
+    private ProxyClassGenerator() {
+        // hidden
+    }
+
+    public static void main(String... args) throws ClassNotFoundException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(
+                    "Usage: ProxyClassGenerator <outputDirectory> <type>... (prefix types with " + JAVA_BEAN_PREFIX
+                            + " for java beans)");
+        }
+        File outputDirectory = new File(args[0]);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new ProxyException("Not able to create directory: " + outputDirectory);
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        for (int i = 1; i < args.length; i++) {
+            boolean javaBean = args[i].startsWith(JAVA_BEAN_PREFIX);
+            String typeName = javaBean ? args[i].substring(JAVA_BEAN_PREFIX.length()) : args[i];
+            Class<?> type = Class.forName(typeName, false, loader);
+            Class<?> proxyClass = InterceptableProxyFactory.pregenerateProxyClass(type, javaBean,
+                    outputDirectory.getPath());
+            System.out.println("Generated " + proxyClass.getName() + " for " + args[i]); // NOSONAR build output
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import javassist.util.proxy.MethodFilter;
+import javassist.util.proxy.MethodHandler;
+import javassist.util.proxy.ProxyObject;
+
+/**
+ * Generates the classes of proxies, one implementation per {@link ProxyBackend}.
+ * <p>
+ * A generated proxy class extends the superclass, implements the interfaces and {@link ProxyObject}, and has public
+ * constructors with the same parameters as the constructors of the superclass. Every method accepted by the filter
+ * calls the {@link MethodHandler} of the proxy with the method, the method of the proxy class that invokes the original
+ * implementation ("_d" followed by an index and the name of the method, null if there is no implementation) and the
+ * arguments. Until a handler is set, the original implementations are invoked directly.
+ * <p>
+ * The interface only proxies of {@link JdkProxyEngine} are the exception, see its documentation.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+interface ProxyEngine {
+
+    /**
+     * @param superclass
+     *            the superclass of the proxy class, null for interface only proxies.
+     * @param interfaces
+     *            the ordered interfaces the proxy class implements.
+     * @param filter
+     *            decides which methods are proxied.
+     *
+     * @return the generated proxy class, or null if this engine is not able to generate the proxy class.
+     */
+    Class<?> createProxyClass(Class<?> superclass, Class<?>[] interfaces, MethodFilter filter);
+}
@@ -23,9 +23,12 @@ package com.ericsson.commonlibrary.proxy;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.function.Supplier;
 
 /**
- * A fluent API to intercerpt an object or class
+ * A fluent API to intercerpt an object or class. The interceptors are collected and the proxy is created by the first
+ * {@link #get()}, with all of its interceptors at once. Interceptors added after that are added to the created proxy.
+ * The same configuration can be turned into a {@link ProxyBlueprint} that creates many proxies.
  *
  * @author Elis Edlund (elis.edlund@ericsson.com)
  *
@@ -34,43 +37,89 @@ import java.lang.reflect.Method;
  */
 public final class ProxyFluent<T> {
 
-    private InterceptableProxy proxy;
+    private final ProxyBackend backend;
+    private final T object;
+    private final Class<T> clazz;
+    private final Object[] constructorArgs;
+    private InterceptorChain chain = InterceptorChain.EMPTY;
+    private Class<?>[] delegateInterfaces = new Class<?>[0];
+    private T proxy;
 
     /*
      * TODO proxy(class).constructorWithArgs(args...) proxy(class).recursiveSafeApplyOnReturnValues()
      * proxy().defaultConstructorOnly() proxy().setClassnamePrefix proxy().setClassnameSuffix
      * proxy.build(wantedInterface)
      */
-    // TODO do not create the proxy until get() is called, to enable delegate() to be able to behave polymorphically on
-    // Class proxies
 
-    ProxyFluent(T o) {
-        proxy = (InterceptableProxy) InterceptableProxyFactory.createANewObjectProxyIfNeeded(o);
+    ProxyFluent(ProxyBackend backend, T o) {
+        this(backend, o, null, null);
     }
 
-    ProxyFluent(Class<T> clazz) {
-        if (clazz.isInterface()) {
-            proxy = InterceptableProxyFactory.createANewInterfaceProxy(clazz);
-        } else { // was a class
-            proxy = (InterceptableProxy) InterceptableProxyFactory.createANewClassProxy(clazz);
-        }
+    ProxyFluent(ProxyBackend backend, Class<T> clazz) {
+        this(backend, null, clazz, null);
     }
 
-    ProxyFluent(Class<T> clazz, Object... constructorArgs) {
+    ProxyFluent(ProxyBackend backend, Class<T> clazz, Object... constructorArgs) {
+        this(backend, null, clazz, constructorArgs);
         if (clazz.isInterface()) {
             throw new ProxyException("the provided interface: " + clazz.getName()
                     + " does not need constructor arguments as it can not use them!");
-        } else { // was a class
-            proxy = (InterceptableProxy) InterceptableProxyFactory.createANewClassProxyWithArguments(clazz,
-                    constructorArgs);
         }
+        ProxyClass.checkConstructorMatching(clazz, constructorArgs); // the proxy is created later, by get().
+    }
+
+    private ProxyFluent(ProxyBackend backend, T object, Class<T> clazz, Object[] constructorArgs) {
+        this.backend = backend;
+        this.object = object;
+        this.clazz = clazz;
+        this.constructorArgs = constructorArgs;
     }
 
     /**
-     * @return the intercepted proxy.
+     * @return the intercepted proxy, the same proxy every time.
      */
     public T get() {
-        return (T) proxy;
+        if (proxy == null) {
+            proxy = createProxy();
+        }
+        return proxy;
+    }
+
+    /**
+     * Freezes the configuration of this builder into a blueprint that creates many proxies of it. The proxy class is
+     * generated and resolved once, by this method. Interceptors added after {@link #get()} are not part of the
+     * blueprint.
+     *
+     * @return a blueprint of the proxy being built.
+     */
+    public ProxyBlueprint<T> blueprint() {
+        return new ProxyBlueprint<>(createFactory(), chain, object != null ? object.getClass() : clazz, object);
+    }
+
+    private T createProxy() {
+        if (object != null) {
+            return InterceptableProxyFactory.createANewObjectProxyIfNeeded(backend, object, chain, delegateInterfaces);
+        }
+        return createFactory().build(chain);
+    }
+
+    private InterceptableProxyFactory createFactory() {
+        if (object != null) {
+            return InterceptableProxyFactory.forObject(backend, object.getClass(), delegateInterfaces);
+        } else if (clazz.isInterface()) {
+            return InterceptableProxyFactory.forInterfaces(backend,
+                    Util.concatArrays(new Class<?>[] { clazz }, delegateInterfaces));
+        }
+        return InterceptableProxyFactory.forClass(backend, clazz, constructorArgs, delegateInterfaces);
+    }
+
+    private ProxyFluent<T> add(Interceptor interceptor) {
+        if (proxy == null) {
+            chain = chain.with(interceptor);
+        } else {
+            Proxy.intercept(proxy, interceptor);
+        }
+        return this;
     }
 
     /**
@@ -82,8 +131,21 @@ public final class ProxyFluent<T> {
      * @return the API itself (used for chaining)
      */
     public ProxyFluent<T> interceptAll(Interceptor interceptor) {
-        Proxy.intercept(proxy, interceptor);
-        return this;
+        return add(interceptor);
+    }
+
+    /**
+     * Add an {@link Interceptor} that intercepts all methods, every proxy gets its own instance of it. Useful for
+     * interceptors with state and a {@link #blueprint()}.
+     *
+     * @param interceptorSupplier
+     *            supplies the interceptor, once for each proxy being created.
+     *
+     * @return the API itself (used for chaining)
+     */
+    public ProxyFluent<T> interceptAllPerInstance(Supplier<? extends Interceptor> interceptorSupplier) {
+        InterceptorSupplier interceptor = new InterceptorSupplier(interceptorSupplier);
+        return add(proxy == null ? interceptor : interceptor.get());
     }
 
     /**
@@ -96,11 +158,10 @@ public final class ProxyFluent<T> {
      * @return the API itself (used for chaining)
      */
     public ProxyFluent<T> interceptAll(InterceptorConsumer interceptor) {
-        Proxy.intercept(proxy, (i) -> {
+        return add((i) -> {
             interceptor.intercept(i);
             return null;
         });
-        return this;
     }
 
     /**
@@ -116,11 +177,10 @@ public final class ProxyFluent<T> {
      * @return the API itself (used for chaining)
      */
     public ProxyFluent<T> interceptMethod(InterceptorConsumer interceptor, Method... methodsToIntercept) {
-        Proxy.intercept(proxy, (i) -> {
+        return add(Proxy.methodInterceptor((i) -> {
             interceptor.intercept(i);
             return null;
-        }, methodsToIntercept);
-        return this;
+        }, methodsToIntercept));
     }
 
     /**
@@ -135,8 +195,7 @@ public final class ProxyFluent<T> {
      * @return the API itself (used for chaining)
      */
     public ProxyFluent<T> interceptMethod(Interceptor interceptor, Method... methodsToIntercept) {
-        Proxy.intercept(proxy, interceptor, methodsToIntercept);
-        return this;
+        return add(Proxy.methodInterceptor(interceptor, methodsToIntercept));
     }
 
     /**
@@ -148,8 +207,7 @@ public final class ProxyFluent<T> {
      * @return the API itself (used for chaining)
      */
     public ProxyFluent<T> interceptAll(InvocationHandler interceptor) {
-        Proxy.intercept(proxy, interceptor);
-        return this;
+        return add(new InterceptorInvocationHandler(interceptor));
     }
 
     /**
@@ -164,13 +222,12 @@ public final class ProxyFluent<T> {
      * @return the API itself (used for chaining)
      */
     public ProxyFluent<T> interceptMethod(InvocationHandler interceptor, Method... methodsToIntercept) {
-        Proxy.intercept(proxy, interceptor, methodsToIntercept);
-        return this;
+        return add(Proxy.methodInterceptor(new InterceptorInvocationHandler(interceptor), methodsToIntercept));
     }
 
     /**
      * Delegate all method calls to the provided delegator objects passed in as parameters. Warning your proxy will not
-     * behave polymorphically.
+     * behave polymorphically. The proxy also implements the interfaces of the delegates.
      *
      * @param delegates
      *            objects to merge into one.
@@ -178,7 +235,13 @@ public final class ProxyFluent<T> {
      * @return the API itself (used for chaining)
      */
     public ProxyFluent<T> delegate(Object... delegates) {
-        Proxy.delegate(proxy, delegates);
+        if (proxy == null) {
+            delegateInterfaces = Util.concatArrays(delegateInterfaces,
+                    Util.getInterfacesImplementedByObjects(delegates));
+            chain = chain.with(new InterceptorDelegator(delegates));
+        } else {
+            proxy = Proxy.delegate(proxy, delegates);
+        }
         return this;
     }
 }
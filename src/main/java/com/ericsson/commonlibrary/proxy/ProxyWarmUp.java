@@ -0,0 +1,118 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves proxy classes ahead of their first use, see {@link Proxy#prewarm(Class...)}.
+ *
+ * @author Elis Edlund (elis.edlund@ericsson.com)
+ */
+final class ProxyWarmUp {
+
+    static final int DISPATCH_PATH_WARM_UP_CALLS = 20_000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProxyWarmUp.class);
+    private static final AtomicBoolean DISPATCH_PATH_WARMED_UP = new AtomicBoolean();
+
+    private ProxyWarmUp() {
+        // hidden
+    }
+
+    static Map<Class<?>, Duration> prewarm(Class<?>... types) {
+        Map<Class<?>, Duration> timings = new LinkedHashMap<>();
+        for (Class<?> type : types) {
+            timings.put(type, prewarm(type));
+        }
+        return timings;
+    }
+
+    static CompletableFuture<Map<Class<?>, Duration>> prewarmAsync(Executor executor, boolean warmUpDispatchPath,
+            Class<?>... types) {
+        Class<?>[] toPrewarm = types.clone();
+        List<CompletableFuture<Duration>> timings = new ArrayList<>(toPrewarm.length);
+        for (Class<?> type : toPrewarm) {
+            timings.add(CompletableFuture.supplyAsync(() -> prewarm(type), executor));
+        }
+        List<CompletableFuture<?>> all = new ArrayList<>(timings);
+        if (warmUpDispatchPath) {
+            all.add(CompletableFuture.runAsync(ProxyWarmUp::warmUpDispatchPath, executor));
+        }
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<Class<?>, Duration> result = new LinkedHashMap<>();
+            for (int i = 0; i < toPrewarm.length; i++) {
+                result.put(toPrewarm[i], timings.get(i).join());
+            }
+            return result;
+        });
+    }
+
+    private static Duration prewarm(Class<?> type) {
+        long start = System.nanoTime();
+        InterceptableProxyFactory.prewarmProxyClass(type);
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        LOG.debug("Prewarmed the proxy class of: {} in {}", type.getName(), duration);
+        return duration;
+    }
+
+    /**
+     * Calls the parts of the dispatch path that all proxies share, so they are initialized and compiled before the
+     * first real call. It's only done once, the proxies are of a class internal to the library since calling the
+     * methods of the prewarmed types could have side effects.
+     */
+    static void warmUpDispatchPath() {
+        if (!DISPATCH_PATH_WARMED_UP.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        WarmUpTarget withoutInterceptors = Proxy.with(WarmUpTarget.class).get();
+        WarmUpTarget intercepted = Proxy.intercept(WarmUpTarget.class, Invocation::invoke);
+        WarmUpTarget delegating = Proxy.intercept(new WarmUpTarget(), Invocation::invoke);
+        for (int i = 0; i < DISPATCH_PATH_WARM_UP_CALLS; i++) {
+            withoutInterceptors.next(i);
+            intercepted.next(i);
+            delegating.next(i);
+        }
+        LOG.debug("Warmed up the dispatch path in {}", Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * The proxied class used to warm up the dispatch path.
+     */
+    public static class WarmUpTarget {
+
+        public int next(int value) {
+            return value + 1;
+        }
+    }
+}
@@ -50,6 +50,9 @@ import org.slf4j.LoggerFactory;
 public final class Util {
 
     private static final Logger LOG = LoggerFactory.getLogger(Util.class);
+    private static final MethodKey TO_STRING = MethodKey.of("toString");
+    private static final MethodKey HASH_CODE = MethodKey.of("hashCode");
+    private static final MethodKey EQUALS = MethodKey.of("equals", Object.class);
 
     private Util() {
         // hidden
@@ -152,12 +155,7 @@ public final class Util {
      * @return if the methods was equals or not.
      */
     public static boolean methodSignatureEquals(Method method, final Method method2) {
-        boolean nameEq = method2.getName().equals(method.getName());
-        return nameEq && methodParamsEquals(method, method2);
-    }
-
-    private static boolean methodParamsEquals(Method method, final Method methodsInObject) {
-        return Arrays.deepEquals(methodsInObject.getParameterTypes(), method.getParameterTypes());
+        return MethodKey.of(method).equals(MethodKey.of(method2));
     }
 
     /**
@@ -209,13 +207,8 @@ public final class Util {
      * @return true if one of these methods
      */
     public static boolean isToStringOrHashcodeOrEqualsMethod(Method method) {
-        try {
-            return Util.methodSignatureEquals(method, Object.class.getMethod("toString"))
-                    || Util.methodSignatureEquals(method, Object.class.getMethod("hashCode"))
-                    || Util.methodSignatureEquals(method, Object.class.getMethod("equals", Object.class));
-        } catch (SecurityException | NoSuchMethodException e) {
-            throw ProxyException.returnThisShouldNeverHappen(e);
-        }
+        MethodKey key = MethodKey.of(method);
+        return TO_STRING.equals(key) || HASH_CODE.equals(key) || EQUALS.equals(key);
     }
 
     /**
@@ -488,16 +481,11 @@ public final class Util {
      * @return the first found method, or null if none was found
      */
     public static Method findMethodWithSignatureInClass(Method methodSignature, Class<?>... classesToLookIn) {
+        MethodKey key = MethodKey.of(methodSignature);
         for (Class<?> classToLookIn : classesToLookIn) {
-            for (final Method methodInObject : classToLookIn.getMethods()) {
-                if (methodSignatureEquals(methodSignature, methodInObject)) {
-                    return methodInObject;
-                }
-            }
-            for (final Method methodInObject : classToLookIn.getDeclaredMethods()) {
-                if (methodSignatureEquals(methodSignature, methodInObject)) {
-                    return methodInObject;
-                }
+            Method methodInObject = key.findIn(classToLookIn);
+            if (methodInObject != null) {
+                return methodInObject;
             }
         }
         return null;
@@ -0,0 +1,177 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.ericsson.commonlibrary.proxy.helpobjects.Unloadable;
+import com.ericsson.commonlibrary.proxy.helpobjects.UnloadableBean;
+
+/**
+ * Proxies of classes in a class loader must not keep the class loader alive, like when an application server undeploys
+ * a module.
+ */
+public class ClassLoaderUnloadingTest {
+
+    private static final int CLASS_LOADERS = 1000;
+    private static final int WARM_UP_CLASS_LOADERS = 100;
+    private static final long MAX_METASPACE_GROWTH = 8 * 1024 * 1024;
+
+    @Test
+    public void proxiesDoNotKeepTheirClassLoaderAlive() throws Exception {
+        List<WeakReference<ClassLoader>> loaders = new ArrayList<>();
+        for (int i = 0; i < WARM_UP_CLASS_LOADERS; i++) {
+            loaders.add(useProxiesInNewClassLoader(i));
+        }
+        collect(loaders);
+        long metaspaceAfterWarmUp = usedMetaspace();
+
+        for (int i = WARM_UP_CLASS_LOADERS; i < CLASS_LOADERS; i++) {
+            loaders.add(useProxiesInNewClassLoader(i));
+        }
+        collect(loaders);
+
+        assertEquals(countAlive(loaders), 0);
+        long growth = usedMetaspace() - metaspaceAfterWarmUp;
+        assertTrue(growth < MAX_METASPACE_GROWTH, "metaspace grew with " + growth + " bytes");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<ClassLoader> useProxiesInNewClassLoader(int index) throws Exception {
+        ClassLoader loader = new ThrowawayClassLoader();
+        ProxyBackend backend = ProxyBackend.values()[index % ProxyBackend.values().length];
+        Class<Object> beanClass = (Class<Object>) loader.loadClass(UnloadableBean.class.getName());
+        Class<Object> unloadable = (Class<Object>) loader.loadClass(Unloadable.class.getName());
+        Method greet = unloadable.getMethod("greet", unloadable);
+
+        Object classProxy = Proxy.with(backend, beanClass).interceptAll(Invocation::invoke).get();
+        Object interfaceProxy = Proxy.with(backend, unloadable).interceptAll(invocation -> "interface").get();
+        Object javaBean = Proxy.javaBean(beanClass);
+        Object delegator = Proxy.delegate(unloadable, new NameOnly(), classProxy);
+        // the proxy class of the holder outlives the class loader, its constructor gets an object of the loader.
+        Holder holder = Proxy.with(backend, Holder.class, classProxy).get();
+
+        assertEquals(greet.invoke(classProxy, interfaceProxy), "hello interface");
+        assertEquals(greet.invoke(javaBean, classProxy), "hello unloadable");
+        assertEquals(greet.invoke(delegator, delegator), "hello only a name");
+        assertEquals(holder.getValue(), classProxy);
+        return new WeakReference<>(loader);
+    }
+
+    private static void collect(List<WeakReference<ClassLoader>> loaders) throws InterruptedException {
+        for (int i = 0; i < 20 && countAlive(loaders) > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+    }
+
+    private static int countAlive(List<WeakReference<ClassLoader>> loaders) {
+        int alive = 0;
+        for (WeakReference<ClassLoader> loader : loaders) {
+            if (loader.get() != null) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    private static long usedMetaspace() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if ("Metaspace".equals(pool.getName())) {
+                return pool.getUsage().getUsed();
+            }
+        }
+        throw new IllegalStateException("No metaspace memory pool");
+    }
+
+    /**
+     * A delegate loaded by the class loader of the test, that implements only some of the methods of
+     * {@link Unloadable}.
+     */
+    public static class NameOnly {
+
+        public String getName() {
+            return "only a name";
+        }
+    }
+
+    /**
+     * A class of the class loader of the test, with a constructor that takes objects of any class loader.
+     */
+    public static class Holder {
+
+        private final Object value;
+
+        public Holder(Object value) {
+            this.value = value;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Defines its own {@link Unloadable} and {@link UnloadableBean}, all other classes are loaded by its parent.
+     */
+    private static final class ThrowawayClassLoader extends ClassLoader {
+
+        ThrowawayClassLoader() {
+            super(ClassLoaderUnloadingTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(Unloadable.class.getName()) && !name.equals(UnloadableBean.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    byte[] bytes = readClassFile(name);
+                    loaded = defineClass(name, bytes, 0, bytes.length);
+                }
+                return loaded;
+            }
+        }
+
+        private byte[] readClassFile(String name) throws ClassNotFoundException {
+            try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                return in.readAllBytes();
+            } catch (IOException | NullPointerException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}
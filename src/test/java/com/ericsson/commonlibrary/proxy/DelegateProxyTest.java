@@ -180,6 +180,16 @@ public class DelegateProxyTest {
         assertFalse(list.contains("hello"));
     }
 
+    @Test
+    public void delegatesOfSameClassAreInvokedOnTheirOwnInstance() throws Exception {
+        List<String> first = Proxy.delegate(new ArrayList<String>(), new ArrayList<>(List.of("a")));
+        List<String> second = Proxy.delegate(new ArrayList<String>(), new ArrayList<>(List.of("b", "c")));
+
+        assertEquals(first.size(), 1);
+        assertEquals(second.size(), 2);
+        assertEquals(second.get(0), "b");
+    }
+
     @Test
     public void addDelegatesRuntime() throws Exception {
         List<String> list = Proxy.delegate(new ArrayList<String>(), new Size10());
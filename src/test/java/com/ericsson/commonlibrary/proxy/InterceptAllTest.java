@@ -0,0 +1,134 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.Test;
+
+public class InterceptAllTest {
+
+    private static final Interceptor EXCLAIM = invocation -> invocation.invoke() + "!";
+
+    @Test
+    public void allObjectsAreInterceptedInOrder() throws Exception {
+        List<Order> orders = orders(100);
+
+        List<Order> proxies = Proxy.interceptAll(orders, EXCLAIM);
+
+        assertEquals(proxies.size(), orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            assertTrue(proxies.get(i) instanceof InterceptableProxy);
+            assertEquals(proxies.get(i).id(), i + "!");
+        }
+    }
+
+    @Test
+    public void objectsOfDifferentClassesAreIntercepted() throws Exception {
+        List<Order> proxies = Proxy.interceptAll(Arrays.asList(new Order(1), new PriorityOrder(2), new Order(3)),
+                EXCLAIM);
+
+        assertEquals(proxies.get(0).id(), "1!");
+        assertTrue(proxies.get(1) instanceof PriorityOrder);
+        assertEquals(proxies.get(1).id(), "priority 2!");
+        assertEquals(proxies.get(2).id(), "3!");
+    }
+
+    @Test
+    public void proxiesGetTheInterceptorAddedAndNullStaysNull() throws Exception {
+        Order proxy = Proxy.with(new Order(1)).interceptAll(invocation -> invocation.invoke() + "?").get();
+
+        List<Order> proxies = Proxy.interceptAll(Arrays.asList(proxy, null), EXCLAIM);
+
+        assertSame(proxies.get(0), proxy);
+        assertEquals(proxy.id(), "1?!");
+        assertNull(proxies.get(1));
+    }
+
+    @Test
+    public void parallelCreationGivesTheSameResult() throws Exception {
+        List<Order> proxies = Proxy.interceptAll(orders(10_000), EXCLAIM, true);
+
+        for (int i = 0; i < proxies.size(); i++) {
+            assertEquals(proxies.get(i).id(), i + "!");
+        }
+    }
+
+    @Test
+    public void interceptingFunctionCanBeUsedInStreams() throws Exception {
+        List<String> ids = orders(1000).parallelStream().map(Proxy.intercepting(EXCLAIM)).map(Order::id)
+                .collect(Collectors.toList());
+
+        assertEquals(ids, IntStream.range(0, 1000).mapToObj(i -> i + "!").collect(Collectors.toList()));
+    }
+
+    @Test
+    public void proxiesHaveTheirOwnInterceptors() throws Exception {
+        List<Order> proxies = Proxy.interceptAll(orders(2), EXCLAIM);
+        Proxy.getProxyInterface(proxies.get(0)).addInterceptor(invocation -> "replaced");
+
+        assertEquals(proxies.get(0).id(), "replaced");
+        assertEquals(proxies.get(1).id(), "1!");
+    }
+
+    private static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            orders.add(new Order(i));
+        }
+        return orders;
+    }
+
+    public static class Order {
+
+        private final int id;
+
+        public Order(int id) {
+            this.id = id;
+        }
+
+        public String id() {
+            return String.valueOf(id);
+        }
+    }
+
+    public static class PriorityOrder extends Order {
+
+        public PriorityOrder(int id) {
+            super(id);
+        }
+
+        @Override
+        public String id() {
+            return "priority " + super.id();
+        }
+    }
+}
@@ -25,6 +25,14 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.testng.annotations.Test;
 
 import com.ericsson.commonlibrary.proxy.helpobjects.PersonBean;
@@ -83,4 +91,45 @@ public class InterceptableProxyTest {
         proxy.removeInterceptor(empty);
         assertFalse(proxy.getInterceptorList().contains(empty));
     }
+
+    @Test
+    public void interceptorListIsASnapshot() throws Exception {
+        PersonBean bean = Proxy.javaBean(PersonBean.class);
+        InterceptableProxy proxy = Proxy.getProxyInterface(bean);
+        Deque<Interceptor> snapshot = proxy.getInterceptorList();
+        proxy.addInterceptor(empty);
+        assertFalse(snapshot.contains(empty));
+        snapshot.clear();
+        assertEquals(proxy.getInterceptorList().size(), 2);
+    }
+
+    @Test
+    public void ableToAddAndRemoveInterceptorsWhileProxyIsUsedByOtherThreads() throws Exception {
+        PersonBean bean = Proxy.javaBean(PersonBean.class);
+        bean.setName("elis");
+        InterceptableProxy proxy = Proxy.getProxyInterface(bean);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        Interceptor interceptor = invocation -> invocation.invoke();
+                        proxy.addInterceptor(interceptor);
+                        assertEquals(bean.getName(), "elis");
+                        proxy.removeInterceptor(interceptor);
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(proxy.getInterceptorList().size(), 1);
+        assertTrue(proxy.getInterceptorList().peekFirst() instanceof InterceptorJavaBean);
+    }
 }
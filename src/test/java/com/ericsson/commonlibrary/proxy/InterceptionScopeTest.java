@@ -0,0 +1,134 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class InterceptionScopeTest {
+
+    private static final Interceptor EXCLAIM = invocation -> invocation.invoke() + "!";
+    private static final Interceptor QUESTION = invocation -> invocation.invoke() + "?";
+
+    @AfterMethod
+    public void switchOn() {
+        Proxy.setInterceptionEnabled(true);
+    }
+
+    @Test
+    public void boundInterceptorsOnlyInterceptInsideTheScope() throws Exception {
+        InterceptionScope scope = Proxy.newInterceptionScope();
+        Greeter proxy = Proxy.with(GreeterImpl.class).interceptAll(scope.bind(EXCLAIM)).interceptAll(QUESTION).get();
+
+        assertEquals(proxy.greet(), "hello?");
+        assertEquals(scope.call(proxy::greet), "hello!?");
+        assertEquals(proxy.greet(), "hello?");
+    }
+
+    @Test
+    public void otherThreadsSkipBoundInterceptorsWhileTheScopeIsActive() throws Exception {
+        InterceptionScope scope = Proxy.newInterceptionScope();
+        Greeter proxy = Proxy.with((Greeter) new GreeterImpl()).interceptAll(scope.bind(EXCLAIM)).get();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            scope.run(() -> {
+                try {
+                    assertEquals(executor.submit(proxy::greet).get(), "hello");
+                    assertEquals(proxy.greet(), "hello!");
+                } catch (Exception e) {
+                    fail("other thread failed", e);
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void onlyTheBoundScopeActivatesAnInterceptor() throws Exception {
+        InterceptionScope scope = Proxy.newInterceptionScope();
+        InterceptionScope other = Proxy.newInterceptionScope();
+        Greeter proxy = Proxy.with(GreeterImpl.class).interceptAll(scope.bind(EXCLAIM)).get();
+
+        assertEquals(other.call(proxy::greet), "hello");
+        assertEquals(other.call(() -> scope.call(proxy::greet)), "hello!");
+    }
+
+    @Test
+    public void scopesCanBeNestedAndAreExitedOnExceptions() throws Exception {
+        InterceptionScope scope = Proxy.newInterceptionScope();
+
+        assertTrue(scope.call(() -> scope.call(scope::isActive) && scope.isActive()));
+        try {
+            scope.run(() -> {
+                throw new IllegalStateException();
+            });
+            fail("expected the exception of the task");
+        } catch (IllegalStateException e) {
+            assertFalse(scope.isActive());
+        }
+    }
+
+    @Test
+    public void boundInterceptorsCanHaveACategory() throws Exception {
+        InterceptionScope scope = Proxy.newInterceptionScope();
+        Greeter proxy = Proxy.with(GreeterImpl.class)
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, scope.bind(EXCLAIM))).get();
+
+        Proxy.setInterceptionEnabled(InterceptorCategory.OPTIONAL, false);
+        assertEquals(scope.call(proxy::greet), "hello");
+
+        Proxy.setInterceptionEnabled(InterceptorCategory.OPTIONAL, true);
+        assertEquals(scope.call(proxy::greet), "hello!");
+    }
+
+    @Test
+    public void boundInterceptorsWithoutCategoryAreNotSwitchedOff() throws Exception {
+        InterceptionScope scope = Proxy.newInterceptionScope();
+        Greeter proxy = Proxy.with(GreeterImpl.class).interceptAll(scope.bind(EXCLAIM)).get();
+
+        Proxy.setInterceptionEnabled(false);
+        Proxy.setProxyInterceptionEnabled(proxy, false);
+
+        assertEquals(scope.call(proxy::greet), "hello!");
+        assertEquals(proxy.greet(), "hello");
+    }
+
+    public interface Greeter {
+        String greet();
+    }
+
+    public static class GreeterImpl implements Greeter {
+        @Override
+        public String greet() {
+            return "hello";
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class InterceptionSwitchTest {
+
+    private static final Interceptor EXCLAIM = invocation -> invocation.invoke() + "!";
+    private static final Interceptor QUESTION = invocation -> invocation.invoke() + "?";
+    private static final Interceptor EXCLAIM_STRINGS = invocation -> {
+        Object result = invocation.invoke();
+        return result instanceof String ? result + "!" : result;
+    };
+
+    @AfterMethod
+    public void switchOn() {
+        Proxy.setInterceptionEnabled(true);
+    }
+
+    @Test
+    public void switchedOffInterceptorsAreSkippedUntilSwitchedOn() throws Exception {
+        Greeter proxy = Proxy.with(GreeterImpl.class)
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, EXCLAIM)).get();
+
+        Proxy.setInterceptionEnabled(false);
+        assertEquals(proxy.greet(), "hello");
+        assertFalse(Proxy.isInterceptionEnabled(InterceptorCategory.OPTIONAL));
+
+        Proxy.setInterceptionEnabled(true);
+        assertEquals(proxy.greet(), "hello!");
+        assertTrue(Proxy.isInterceptionEnabled(InterceptorCategory.OPTIONAL));
+    }
+
+    @Test
+    public void interceptorsWithoutCategoryAreNeverSwitchedOff() throws Exception {
+        Greeter proxy = Proxy.with(GreeterImpl.class)
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, EXCLAIM)).interceptAll(QUESTION).get();
+
+        Proxy.setInterceptionEnabled(false);
+
+        assertEquals(proxy.greet(), "hello?");
+        assertEquals(Proxy.getProxyInterface(proxy).getInterceptorList().size(), 2);
+    }
+
+    @Test
+    public void onlyTheSwitchedCategoryIsSkipped() throws Exception {
+        Greeter proxy = Proxy.with(GreeterImpl.class)
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, EXCLAIM))
+                .interceptAll(Proxy.inCategory(InterceptorCategory.TIMER, QUESTION)).get();
+
+        Proxy.setInterceptionEnabled(InterceptorCategory.TIMER, false);
+        assertEquals(proxy.greet(), "hello!");
+        assertTrue(Proxy.isInterceptionEnabled(InterceptorCategory.OPTIONAL));
+
+        Proxy.setInterceptionEnabled(InterceptorCategory.OPTIONAL, false);
+        assertEquals(proxy.greet(), "hello");
+
+        Proxy.setInterceptionEnabled(InterceptorCategory.TIMER, true);
+        assertEquals(proxy.greet(), "hello?");
+    }
+
+    @Test
+    public void methodSpecificInterceptorsCanBeSwitchedOff() throws Exception {
+        Greeter proxy = Proxy.intercept(Proxy.with(GreeterImpl.class).get(),
+                Proxy.inCategory(InterceptorCategory.OPTIONAL, EXCLAIM), Greeter.class.getMethod("greet"));
+
+        assertEquals(proxy.greet(), "hello!");
+        Proxy.setInterceptionEnabled(InterceptorCategory.OPTIONAL, false);
+        assertEquals(proxy.greet(), "hello");
+    }
+
+    @Test
+    public void objectProxiesStillDelegateWhenSwitchedOff() throws Exception {
+        Greeter proxy = Proxy.with((Greeter) new Impolite())
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, EXCLAIM)).get();
+        List<Greeter> proxies = Proxy.interceptAll(Collections.singletonList(new Impolite()),
+                Proxy.inCategory(InterceptorCategory.OPTIONAL, QUESTION));
+        Named delegating = Proxy.delegate(Named.class, new Impolite());
+
+        Proxy.setInterceptionEnabled(false);
+
+        assertEquals(proxy.greet(), "go away");
+        assertEquals(proxies.get(0).greet(), "go away");
+        assertEquals(delegating.greet(), "go away");
+        assertEquals(delegating.name(), "impolite");
+    }
+
+    @Test
+    public void builtInInterceptorsHaveCategories() throws Exception {
+        Parent parent = Proxy.recursiveIntercept(Proxy.addTimerToMethods(new Parent()), EXCLAIM_STRINGS);
+
+        Proxy.setInterceptionEnabled(InterceptorCategory.TIMER, false);
+        assertEquals(parent.child().greet(), "hello!");
+
+        Proxy.setInterceptionEnabled(InterceptorCategory.RECURSIVE, false);
+        Greeter child = parent.child();
+        assertFalse(child instanceof InterceptableProxy);
+        assertEquals(child.greet(), "hello");
+    }
+
+    @Test
+    public void aProxyCanBeSwitchedOffAlone() throws Exception {
+        Greeter proxy = Proxy.with(GreeterImpl.class)
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, EXCLAIM)).interceptAll(QUESTION).get();
+        Greeter other = Proxy.with(GreeterImpl.class)
+                .interceptAll(Proxy.inCategory(InterceptorCategory.OPTIONAL, EXCLAIM)).get();
+
+        assertTrue(Proxy.setProxyInterceptionEnabled(proxy, false));
+        Proxy.intercept(proxy, Proxy.inCategory(InterceptorCategory.MDC, EXCLAIM));
+
+        assertEquals(proxy.greet(), "hello?");
+        assertEquals(other.greet(), "hello!");
+
+        assertFalse(Proxy.setProxyInterceptionEnabled(proxy, true));
+        assertEquals(proxy.greet(), "hello!?!");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void onlyProxiesCanBeSwitchedOffAlone() throws Exception {
+        Proxy.setProxyInterceptionEnabled(new Impolite(), false);
+    }
+
+    public interface Greeter {
+        String greet();
+    }
+
+    public interface Named extends Greeter {
+        String name();
+    }
+
+    public static class GreeterImpl implements Greeter {
+        @Override
+        public String greet() {
+            return "hello";
+        }
+    }
+
+    public static class Impolite implements Greeter {
+        @Override
+        public String greet() {
+            return "go away";
+        }
+
+        public String name() {
+            return "impolite";
+        }
+    }
+
+    public static class Parent {
+        public Greeter child() {
+            return new GreeterImpl();
+        }
+    }
+}
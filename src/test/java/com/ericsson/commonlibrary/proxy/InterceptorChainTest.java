@@ -0,0 +1,79 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class InterceptorChainTest {
+
+    private final Interceptor first = invocation -> invocation.invoke();
+    private final Interceptor second = invocation -> invocation.invoke();
+
+    @Test
+    public void methodInterceptorIsOnlyPartOfMatchingMethodsChain() throws Exception {
+        Interceptor sizeOnly = new InterceptorMethod(second, List.class.getMethod("size"));
+        InterceptorChain chain = InterceptorChain.EMPTY.with(first).with(sizeOnly);
+
+        MethodDispatch size = new MethodDispatch(List.class.getMethod("size"));
+        MethodDispatch clear = new MethodDispatch(List.class.getMethod("clear"));
+
+        assertEquals(chain.forMethod(size), new Interceptor[] { second, first });
+        assertEquals(chain.forMethod(clear), new Interceptor[] { first });
+        assertSame(chain.forMethod(size), chain.forMethod(size));
+        assertEquals(chain.getInterceptors(), new Interceptor[] { sizeOnly, first });
+    }
+
+    @Test
+    public void chainWithoutMethodInterceptorsIsSharedByAllMethods() throws Exception {
+        InterceptorChain chain = InterceptorChain.EMPTY.with(first);
+
+        assertSame(chain.forMethod(new MethodDispatch(List.class.getMethod("size"))), chain.getInterceptors());
+    }
+
+    @Test
+    public void removeCreatesNewChain() throws Exception {
+        InterceptorChain chain = InterceptorChain.EMPTY.with(first).with(second).with(first);
+
+        assertEquals(chain.without(first).getInterceptors(), new Interceptor[] { second, first });
+        assertSame(chain.without("notInChain"), chain);
+        assertSame(chain.without(null), chain);
+    }
+
+    @Test
+    public void methodInterceptorIsOnlyInvokedForMatchingMethods() throws Exception {
+        List<String> calls = new ArrayList<>();
+        List<String> list = Proxy.intercept(new ArrayList<String>(), invocation -> {
+            calls.add(invocation.getMethodName());
+            return invocation.invoke();
+        }, List.class.getMethod("size"));
+        list.add("a");
+        list.isEmpty();
+        assertEquals(list.size(), 1);
+        assertEquals(calls, List.of("size"));
+    }
+}
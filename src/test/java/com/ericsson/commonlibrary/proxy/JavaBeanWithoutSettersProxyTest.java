@@ -65,6 +65,13 @@ public class JavaBeanWithoutSettersProxyTest {
         assertEquals(proxyBean2.getName(), "kalle2");
     }
 
+    @Test
+    public void javaBeanClassWithSetMethodsIsCreatedOncePerType() {
+        assertEquals(Proxy.javaBean(JavaBean.class).getClass(), Proxy.javaBean(JavaBean.class).getClass());
+        assertEquals(Proxy.javaBean(JavaBeanAbstract.class).getClass(),
+                Proxy.javaBean(JavaBeanAbstract.class).getClass());
+    }
+
     @Test
     public void javaBeanInnerStatic() {
         JavaBean2 proxyBean = Proxy.javaBean(JavaBean2.class);
@@ -0,0 +1,73 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class MethodKeyTest {
+
+    @Test
+    public void keyIgnoresDeclaringClass() throws Exception {
+        MethodKey interfaceKey = MethodKey.of(List.class.getMethod("add", Object.class));
+        MethodKey classKey = MethodKey.of(ArrayList.class.getMethod("add", Object.class));
+
+        assertEquals(classKey, interfaceKey);
+        assertEquals(classKey.hashCode(), interfaceKey.hashCode());
+        assertEquals(MethodKey.of("add", Object.class), interfaceKey);
+    }
+
+    @Test
+    public void keyIncludesParameterTypes() throws Exception {
+        assertNotEquals(MethodKey.of(List.class.getMethod("remove", Object.class)),
+                MethodKey.of(List.class.getMethod("remove", int.class)));
+        assertFalse(MethodKey.of("size", int.class).matches(List.class.getMethod("size")));
+        assertTrue(MethodKey.of("size").matches(List.class.getMethod("size")));
+    }
+
+    @Test
+    public void keysAreInternedPerMethod() throws Exception {
+        assertSame(MethodKey.of(List.class.getMethod("size")), MethodKey.of(List.class.getMethod("size")));
+    }
+
+    @Test
+    public void findInClass() throws Exception {
+        MethodKey size = MethodKey.of(List.class.getMethod("size"));
+
+        assertEquals(size.findIn(ArrayList.class).getDeclaringClass(), ArrayList.class);
+        assertNull(MethodKey.of("notExisting").findIn(ArrayList.class));
+    }
+
+    @Test
+    public void toStringShowsSignature() throws Exception {
+        assertEquals(MethodKey.of("equals", Object.class).toString(), "equals(java.lang.Object)");
+    }
+}
@@ -0,0 +1,263 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ProxyBackendTest {
+
+    @DataProvider
+    public Object[][] backends() {
+        return new Object[][] { { ProxyBackend.JAVASSIST }, { ProxyBackend.LOOKUP }, { ProxyBackend.JDK } };
+    }
+
+    @Test
+    public void lookupBackendGeneratesItsOwnProxyClasses() throws Exception {
+        Service service = Proxy.with(ProxyBackend.LOOKUP, Service.class).get();
+        Named named = Proxy.with(ProxyBackend.LOOKUP, Named.class).get();
+
+        assertTrue(service.getClass().getName().contains(LookupProxyEngine.NAME_SEPARATOR));
+        assertTrue(named.getClass().getName().contains(LookupProxyEngine.NAME_SEPARATOR));
+    }
+
+    @Test
+    public void lookupBackendLeavesClassesItCanNotDefineToJavassist() throws Exception {
+        List<String> list = Proxy.with(ProxyBackend.LOOKUP, new ArrayList<String>())
+                .interceptAll(invocation -> "size".equals(invocation.getMethodName()) ? 42 : invocation.invoke()).get();
+
+        assertFalse(list.getClass().getName().contains(LookupProxyEngine.NAME_SEPARATOR));
+        assertEquals(list.size(), 42);
+    }
+
+    @Test
+    public void jdkBackendProxiesInterfacesWithJavaLangReflectProxy() throws Exception {
+        Named named = Proxy.with(ProxyBackend.JDK, Named.class).interceptAll(invocation -> "intercepted").get();
+        Service service = Proxy.with(ProxyBackend.JDK, Service.class).get();
+
+        assertTrue(java.lang.reflect.Proxy.isProxyClass(named.getClass()));
+        assertFalse(java.lang.reflect.Proxy.isProxyClass(service.getClass()));
+        assertEquals(named.id(), "intercepted");
+    }
+
+    @Test
+    public void jdkBackendEmulatesTheMethodsOfObject() throws Exception {
+        Named named = Proxy.with(ProxyBackend.JDK, Named.class).get();
+        Named other = Proxy.with(ProxyBackend.JDK, Named.class).get();
+
+        assertTrue(named.equals(named));
+        assertFalse(named.equals(other));
+        assertEquals(named.hashCode(), System.identityHashCode(named));
+        assertEquals(named.toString(), Named.class.getName() + "$$" + named.getClass().getSimpleName() + "@"
+                + Integer.toHexString(named.hashCode()));
+    }
+
+    @Test(dataProvider = "backends")
+    public void objectsOfJavaLangReflectProxyClassesAreProxied(ProxyBackend backend) throws Exception {
+        Named jdkProxy = (Named) java.lang.reflect.Proxy.newProxyInstance(Named.class.getClassLoader(),
+                new Class<?>[] { Named.class }, (proxy, method, args) -> "jdk");
+        Named named = Proxy.with(backend, jdkProxy).interceptAll(invocation -> invocation.invoke() + "!").get();
+
+        assertEquals(named.id(), "jdk!");
+    }
+
+    @Test(dataProvider = "backends")
+    public void allKindsOfMethodsAreIntercepted(ProxyBackend backend) throws Exception {
+        List<String> intercepted = new ArrayList<>();
+        Service service = Proxy.with(backend, Service.class).interceptAll(invocation -> {
+            intercepted.add(invocation.getMethodName());
+            return invocation.invoke();
+        }).get();
+
+        assertEquals(service.concat("a", 1, 2L, 3.0, 4f, 'c', true), "a123.04.0ctrue");
+        assertEquals(service.sum(1, 2, 3), 6L);
+        assertEquals(service.twice(2.5), 5.0);
+        service.nothing();
+        assertEquals(service.callProtected(), "protected");
+        assertNull(service.echo(null));
+        assertEquals(service.name(), "default Service");
+        assertEquals(intercepted,
+                List.of("concat", "sum", "twice", "nothing", "callProtected", "protectedValue", "echo", "name", "id"));
+    }
+
+    @Test(dataProvider = "backends", expectedExceptions = IOException.class)
+    public void checkedExceptionsArePropagated(ProxyBackend backend) throws Exception {
+        Proxy.with(backend, Service.class).interceptAll(Invocation::invoke).get().fail();
+    }
+
+    @Test(dataProvider = "backends")
+    public void undeclaredCheckedExceptionsAreWrappedOnlyByTheJdkBackend(ProxyBackend backend) throws Exception {
+        IOException undeclared = new IOException("undeclared");
+        Interceptor throwing = invocation -> {
+            throw undeclared;
+        };
+        Named named = Proxy.with(backend, Named.class).interceptAll(throwing).get();
+
+        try {
+            named.id();
+            fail("expected the exception of the interceptor");
+        } catch (UndeclaredThrowableException e) {
+            assertEquals(backend, ProxyBackend.JDK);
+            assertSame(e.getCause(), undeclared);
+        } catch (Exception e) {
+            assertNotEquals(backend, ProxyBackend.JDK);
+            assertSame(e, undeclared);
+        }
+    }
+
+    @Test(dataProvider = "backends", expectedExceptions = NullPointerException.class)
+    public void nullFromInterceptorOfPrimitiveMethodThrowsNullPointerException(ProxyBackend backend) {
+        Proxy.with(backend, Service.class).interceptAll(invocation -> null).get().twice(1);
+    }
+
+    @Test(dataProvider = "backends")
+    public void interfaceMethodsWithoutImplementationAreIntercepted(ProxyBackend backend) throws Exception {
+        Named named = Proxy.with(backend, Named.class).interceptAll(invocation -> "intercepted "
+                + (invocation.getMethodName().equals("name") ? invocation.invoke() : invocation.getMethodName())).get();
+
+        assertEquals(named.id(), "intercepted id");
+        assertEquals(named.name(), "intercepted default intercepted id");
+    }
+
+    @Test(dataProvider = "backends")
+    public void methodsCalledByTheSuperclassConstructorInvokeTheOriginal(ProxyBackend backend) throws Exception {
+        CallsMethodInConstructor proxy = Proxy.with(backend, CallsMethodInConstructor.class)
+                .interceptAll(invocation -> "intercepted").get();
+
+        assertEquals(proxy.valueInConstructor, "original");
+        assertEquals(proxy.value(), "intercepted");
+    }
+
+    @Test(dataProvider = "backends")
+    public void objectsAreProxiedWithoutCallingTheConstructor(ProxyBackend backend) throws Exception {
+        CallsMethodInConstructor proxy = Proxy.with(backend, new CallsMethodInConstructor("value"))
+                .interceptAll(invocation -> invocation.invoke() + "!").get();
+
+        assertNull(proxy.valueInConstructor);
+        assertEquals(proxy.value(), "value!");
+    }
+
+    @Test(dataProvider = "backends")
+    public void constructorArgumentsAreUsed(ProxyBackend backend) throws Exception {
+        CallsMethodInConstructor proxy = Proxy.with(backend, CallsMethodInConstructor.class, "argument").get();
+
+        assertEquals(proxy.value(), "argument");
+    }
+
+    @Test
+    public void defaultBackendIsUsedWhenNoBackendIsGiven() throws Exception {
+        ProxyBackend original = Proxy.getDefaultBackend();
+        try {
+            Proxy.setDefaultBackend(ProxyBackend.LOOKUP);
+            Service service = Proxy.with(Service.class).get();
+
+            assertTrue(service.getClass().getName().contains(LookupProxyEngine.NAME_SEPARATOR));
+        } finally {
+            Proxy.setDefaultBackend(original);
+        }
+    }
+
+    public interface Named {
+
+        String id();
+
+        default String name() {
+            return "default " + id();
+        }
+    }
+
+    public static class Service implements Named {
+
+        public String concat(String s, int i, long l, double d, float f, char c, boolean b) {
+            return s + i + l + d + f + c + b;
+        }
+
+        public long sum(long... values) {
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        public double twice(double value) {
+            return value * 2;
+        }
+
+        public void nothing() {
+            // nothing
+        }
+
+        public String callProtected() {
+            return protectedValue();
+        }
+
+        protected String protectedValue() {
+            return "protected";
+        }
+
+        public Object echo(Object value) {
+            return value;
+        }
+
+        public void fail() throws IOException {
+            throw new IOException("fail");
+        }
+
+        @Override
+        public String id() {
+            return "Service";
+        }
+    }
+
+    public static class CallsMethodInConstructor {
+
+        final String valueInConstructor;
+        private final String value;
+
+        public CallsMethodInConstructor() {
+            this("original");
+        }
+
+        public CallsMethodInConstructor(String value) {
+            this.value = value;
+            valueInConstructor = value();
+        }
+
+        public String value() {
+            return value;
+        }
+    }
+}
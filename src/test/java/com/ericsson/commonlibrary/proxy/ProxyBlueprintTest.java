@@ -0,0 +1,206 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ProxyBlueprintTest {
+
+    private static final Interceptor EXCLAIM = invocation -> invocation.invoke() + "!";
+
+    @DataProvider
+    public Object[][] backends() {
+        return new Object[][] { { ProxyBackend.JAVASSIST }, { ProxyBackend.LOOKUP }, { ProxyBackend.JDK } };
+    }
+
+    @Test(dataProvider = "backends")
+    public void newInstanceCreatesNewProxiesOfAClass(ProxyBackend backend) throws Exception {
+        ProxyBlueprint<Greeter> blueprint = Proxy.with(backend, Greeter.class).interceptAll(EXCLAIM).blueprint();
+
+        Greeter first = blueprint.newInstance();
+        Greeter second = blueprint.newInstance();
+
+        assertNotSame(first, second);
+        assertSame(first.getClass(), second.getClass());
+        assertEquals(first.greet("a"), "hello a!");
+        assertEquals(second.greet("b"), "hello b!");
+    }
+
+    @Test(dataProvider = "backends")
+    public void wrapDelegatesToTheTarget(ProxyBackend backend) throws Exception {
+        ProxyBlueprint<Named> blueprint = Proxy.with(backend, Named.class).interceptAll(EXCLAIM).blueprint();
+
+        assertEquals(blueprint.wrap(() -> "first").name(), "first!");
+        assertEquals(blueprint.wrap(() -> "second").name(), "second!");
+    }
+
+    @Test
+    public void wrapOfAClassBlueprintDoesNotCallTheConstructor() throws Exception {
+        ProxyBlueprint<Greeter> blueprint = Proxy.with(Greeter.class).interceptAll(EXCLAIM).blueprint();
+        int constructed = Greeter.constructed.get();
+
+        Greeter proxy = blueprint.wrap(new Greeter("hi"));
+
+        assertEquals(proxy.greet("a"), "hi a!");
+        assertEquals(Greeter.constructed.get(), constructed + 1);
+    }
+
+    @Test
+    public void objectBlueprintCreatesProxiesOfTheObject() throws Exception {
+        List<String> list = new ArrayList<>();
+        ProxyBlueprint<List<String>> blueprint = Proxy.with(list)
+                .interceptMethod(invocation -> 10, List.class.getMethod("size")).blueprint();
+
+        List<String> first = blueprint.newInstance();
+        first.add("a");
+        List<String> other = blueprint.wrap(new ArrayList<>());
+
+        assertEquals(first.size(), 10);
+        assertEquals(list, List.of("a"));
+        assertEquals(other.size(), 10);
+        assertTrue(other.isEmpty());
+    }
+
+    @Test
+    public void perInstanceInterceptorsAreSuppliedForEveryProxy() throws Exception {
+        AtomicInteger supplied = new AtomicInteger();
+        ProxyBlueprint<Greeter> blueprint = Proxy.with(Greeter.class).interceptAllPerInstance(() -> {
+            supplied.incrementAndGet();
+            return new Counting();
+        }).blueprint();
+
+        Greeter first = blueprint.newInstance();
+        Greeter second = blueprint.newInstance();
+        first.greet("a");
+        first.greet("a");
+
+        assertEquals(supplied.get(), 2);
+        assertEquals(first.greet("a"), "hello a 3");
+        assertEquals(second.greet("b"), "hello b 1");
+    }
+
+    @Test
+    public void perInstanceInterceptorIsSuppliedOnceWithoutBlueprint() throws Exception {
+        Greeter greeter = Proxy.with(Greeter.class).interceptAllPerInstance(Counting::new).interceptAll(EXCLAIM).get();
+
+        greeter.greet("a");
+
+        assertEquals(greeter.greet("a"), "hello a 2!");
+    }
+
+    @Test
+    public void proxiesHaveTheirOwnInterceptors() throws Exception {
+        ProxyBlueprint<Greeter> blueprint = Proxy.with(Greeter.class).interceptAll(EXCLAIM).blueprint();
+        Greeter first = blueprint.newInstance();
+        Greeter second = blueprint.newInstance();
+
+        Proxy.getProxyInterface(first).addInterceptor(invocation -> "replaced");
+
+        assertEquals(first.greet("a"), "replaced");
+        assertEquals(second.greet("a"), "hello a!");
+    }
+
+    @Test
+    public void delegatesAreIncluded() throws Exception {
+        ProxyBlueprint<Greeter> blueprint = Proxy.with(Greeter.class).delegate(new NamedGreeter()).blueprint();
+
+        Greeter greeter = blueprint.newInstance();
+
+        assertEquals(greeter.greet("a"), "greetings a");
+        assertEquals(((Named) greeter).name(), "named");
+    }
+
+    @Test(dataProvider = "backends")
+    public void wrapOfAProxyAddsTheInterceptorsToIt(ProxyBackend backend) throws Exception {
+        ProxyBlueprint<Named> blueprint = Proxy.with(backend, Named.class).interceptAll(EXCLAIM).blueprint();
+        Named proxy = Proxy.with((Named) new NamedGreeter()).interceptAll(invocation -> invocation.invoke() + "?")
+                .get();
+
+        assertSame(blueprint.wrap(proxy), proxy);
+        assertEquals(proxy.name(), "named?!");
+        assertEquals(Proxy.getProxyInterface(proxy).getInterceptorList().size(), 3);
+    }
+
+    @Test(expectedExceptions = ProxyException.class)
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void wrapOfAnotherTypeThrowsProxyException() throws Exception {
+        ProxyBlueprint blueprint = Proxy.with(Greeter.class).blueprint();
+        blueprint.wrap("not a greeter");
+    }
+
+    public interface Named {
+
+        String name();
+    }
+
+    public static class Greeter {
+
+        static final AtomicInteger constructed = new AtomicInteger();
+
+        private final String greeting;
+
+        public Greeter() {
+            this("hello");
+        }
+
+        public Greeter(String greeting) {
+            this.greeting = greeting;
+            constructed.incrementAndGet();
+        }
+
+        public String greet(String name) {
+            return greeting + " " + name;
+        }
+    }
+
+    public static class NamedGreeter implements Named {
+
+        public String greet(String name) {
+            return "greetings " + name;
+        }
+
+        @Override
+        public String name() {
+            return "named";
+        }
+    }
+
+    public static class Counting implements Interceptor {
+
+        private int calls;
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            return invocation.invoke() + " " + ++calls;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+
+import org.testng.annotations.Test;
+
+import com.ericsson.commonlibrary.proxy.helpobjects.PersonBean;
+
+public class ProxyClassCacheTest {
+
+    private final Interceptor empty = invocation -> invocation.invoke();
+
+    @Test
+    public void sameShapeReusesProxyClass() throws Exception {
+        List<String> first = Proxy.intercept(new ArrayList<String>(), empty);
+        long hits = ProxyClassCache.hitCount();
+        List<String> second = Proxy.intercept(new ArrayList<String>(), empty);
+
+        assertEquals(second.getClass(), first.getClass());
+        assertTrue(ProxyClassCache.hitCount() > hits);
+    }
+
+    @Test
+    public void sameInterfaceShapeReusesProxyClass() throws Exception {
+        PersonBean first = Proxy.intercept(PersonBean.class, empty);
+        long misses = ProxyClassCache.missCount();
+        PersonBean second = Proxy.intercept(PersonBean.class, empty);
+
+        assertEquals(second.getClass(), first.getClass());
+        assertEquals(ProxyClassCache.missCount(), misses);
+    }
+
+    @Test
+    public void differentShapesGetDifferentProxyClasses() throws Exception {
+        Object plain = Proxy.intercept(new ArrayList<String>(), empty);
+        Runnable runnable = () -> {
+        };
+        Object withExtraInterface = Proxy.delegate(new ArrayList<String>(), runnable);
+
+        assertNotEquals(withExtraInterface.getClass(), plain.getClass());
+        assertTrue(withExtraInterface instanceof Runnable);
+    }
+
+    @Test
+    public void leastRecentlyUsedShapeIsEvicted() throws Exception {
+        Class<?>[] jdkInterfaces = { Runnable.class, Callable.class, Comparable.class, Serializable.class,
+                Cloneable.class, Closeable.class, RandomAccess.class, Collection.class, Iterable.class };
+        List<Class<?>[]> shapes = new ArrayList<>();
+        for (Class<?> first : jdkInterfaces) {
+            for (Class<?> second : jdkInterfaces) {
+                if (first != second && shapes.size() <= ProxyClassCache.MAX_SHAPES_PER_CLASS) {
+                    shapes.add(new Class<?>[] { first, second });
+                }
+            }
+        }
+        ProxyClass hot = shapeOf(shapes.get(0));
+        ProxyClass cold = shapeOf(shapes.get(1));
+        for (int i = 2; i < ProxyClassCache.MAX_SHAPES_PER_CLASS; i++) {
+            assertSame(shapeOf(shapes.get(0)), hot);
+            shapeOf(shapes.get(i));
+        }
+
+        shapeOf(shapes.get(ProxyClassCache.MAX_SHAPES_PER_CLASS)); // one more than fits.
+
+        assertSame(shapeOf(shapes.get(0)), hot);
+        assertNotSame(shapeOf(shapes.get(1)), cold);
+    }
+
+    private static ProxyClass shapeOf(Class<?>[] interfaces) {
+        return ProxyClassCache.get(ProxyBackend.JAVASSIST, ShapeOwner.class, interfaces, () -> ShapeOwner.class);
+    }
+
+    public static class ShapeOwner {
+    }
+}
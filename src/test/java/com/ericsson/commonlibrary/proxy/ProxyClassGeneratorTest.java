@@ -0,0 +1,123 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.annotations.Test;
+
+import com.ericsson.commonlibrary.proxy.helpobjects.PregeneratedBean;
+import com.ericsson.commonlibrary.proxy.helpobjects.PregeneratedService;
+
+public class ProxyClassGeneratorTest {
+
+    private static final Class<?>[] ONLY_INTERCEPTABLE_PROXY = { InterceptableProxy.class };
+
+    @Test
+    public void namesAreDerivedFromShape() throws Exception {
+        String name = PregeneratedProxyClasses.nameOf(PregeneratedService.class, ONLY_INTERCEPTABLE_PROXY);
+
+        assertEquals(PregeneratedProxyClasses.nameOf(PregeneratedService.class, ONLY_INTERCEPTABLE_PROXY), name);
+        assertTrue(name.startsWith(PregeneratedService.class.getName() + PregeneratedProxyClasses.NAME_SEPARATOR));
+        assertNull(PregeneratedProxyClasses.nameOf(Object.class, ONLY_INTERCEPTABLE_PROXY));
+    }
+
+    @Test
+    public void namesHaveA64BitDigestOfTheShape() throws Exception {
+        String name = PregeneratedProxyClasses.nameOf(PregeneratedService.class, ONLY_INTERCEPTABLE_PROXY);
+        String digest = name.substring(name.lastIndexOf('$') + 1);
+
+        assertTrue(digest.matches("[0-9a-f]{16}"), digest);
+        assertNotEquals(PregeneratedProxyClasses.nameOf(PregeneratedService.class, new Class<?>[0]), name);
+    }
+
+    @Test
+    public void onlyClassesOfExactlyTheShapeAreUsed() throws Exception {
+        Class<?> proxyClass = Proxy.with(ProxyBackend.JAVASSIST, Shaped.class).get().getClass();
+
+        assertTrue(PregeneratedProxyClasses.isOfShape(proxyClass, Shaped.class, ONLY_INTERCEPTABLE_PROXY));
+        assertFalse(PregeneratedProxyClasses.isOfShape(proxyClass, Shaped.class, new Class<?>[0]));
+        assertFalse(PregeneratedProxyClasses.isOfShape(proxyClass, Shaped.class,
+                new Class<?>[] { InterceptableProxy.class, Runnable.class }));
+    }
+
+    @Test
+    public void proxyClassesGeneratedAtRuntimeAreWrittenToTheDumpDirectory() throws Exception {
+        Path directory = Files.createTempDirectory("proxy-classes");
+        System.setProperty(ProxyClassGenerator.DUMP_DIRECTORY_PROPERTY, directory.toString());
+        try {
+            Dumped dumped = Proxy.with(ProxyBackend.JAVASSIST, Dumped.class).get();
+
+            String name = PregeneratedProxyClasses.nameOf(Dumped.class, ONLY_INTERCEPTABLE_PROXY);
+            assertEquals(dumped.getClass().getName(), name);
+            assertTrue(Files.isRegularFile(directory.resolve(name.replace('.', File.separatorChar) + ".class")));
+        } finally {
+            System.clearProperty(ProxyClassGenerator.DUMP_DIRECTORY_PROPERTY);
+        }
+    }
+
+    @Test
+    public void proxyClassesGeneratedAtBuildTimeAreUsedAtRuntime() throws Exception {
+        File classes = new File(PregeneratedService.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        // generated in an other jvm, so that this jvm loads them from the class path.
+        Process generator = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ProxyClassGenerator.class.getName(), classes.getPath(), PregeneratedService.class.getName(),
+                ProxyClassGenerator.JAVA_BEAN_PREFIX + PregeneratedBean.class.getName()).inheritIO().start();
+        assertEquals(generator.waitFor(), 0);
+
+        // only the javassist backend uses pre-generated classes, also when the suite runs with another default.
+        PregeneratedService service = Proxy.with(ProxyBackend.JAVASSIST, PregeneratedService.class)
+                .interceptAll(invocation -> invocation.invoke() + "!").get();
+        assertEquals(service.getClass().getName(),
+                PregeneratedProxyClasses.nameOf(PregeneratedService.class, ONLY_INTERCEPTABLE_PROXY));
+        assertEquals(service.hello("world"), "hello world!");
+
+        ProxyBackend original = Proxy.getDefaultBackend();
+        Proxy.setDefaultBackend(ProxyBackend.JAVASSIST); // java beans have no backend of their own.
+        try {
+            PregeneratedBean bean = Proxy.javaBean(PregeneratedBean.class);
+            Method setName = bean.getClass().getMethod("setName", String.class);
+            setName.invoke(bean, "name");
+            assertEquals(bean.getName(), "name");
+            assertTrue(bean.getClass().getName().contains(PregeneratedProxyClasses.NAME_SEPARATOR));
+        } finally {
+            Proxy.setDefaultBackend(original);
+        }
+    }
+
+    public static class Dumped {
+    }
+
+    public static class Shaped {
+    }
+}
@@ -23,6 +23,7 @@ package com.ericsson.commonlibrary.proxy;
 
 import static com.ericsson.commonlibrary.proxy.Proxy.with;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -30,6 +31,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -40,6 +42,7 @@ import com.ericsson.commonlibrary.proxy.helpobjects.NonEmptyConstructorCharSeque
 import com.ericsson.commonlibrary.proxy.helpobjects.NonEmptyConstructorThrowingException;
 import com.ericsson.commonlibrary.proxy.helpobjects.NonEmptyConstructorWithObject;
 import com.ericsson.commonlibrary.proxy.helpobjects.NonEmptyConstructorWithObject.WrapperObject;
+import com.ericsson.commonlibrary.proxy.helpobjects.SeveralConstructors;
 import com.ericsson.commonlibrary.proxy.helpobjects.Size10;
 
 public class ProxyFluentTest {
@@ -106,6 +109,42 @@ public class ProxyFluentTest {
                 .get();
     }
 
+    @Test(expectedExceptions = ProxyException.class, expectedExceptionsMessageRegExp = "Did not find any constructor.*")
+    public void constructorArgumentsAreCheckedBeforeGetTest() throws Exception {
+        with(NonEmptyConstructor.class, 1);
+    }
+
+    @Test
+    public void constructorWithMatchingNumberOfArgumentsTest() throws Exception {
+        SeveralConstructors one = with(SeveralConstructors.class, "one").interceptAll(emptyInterceptor).get();
+        SeveralConstructors two = with(SeveralConstructors.class, "two", 2).interceptAll(emptyInterceptor).get();
+
+        Assert.assertEquals(one.getString(), "one");
+        Assert.assertEquals(one.getNumber(), -1);
+        Assert.assertEquals(two.getString(), "two");
+        Assert.assertEquals(two.getNumber(), 2);
+    }
+
+    @Test
+    public void constructorArgumentsResolvedAgainForOtherTypesTest() throws Exception {
+        SeveralConstructors nullString = with(SeveralConstructors.class, null, 3).interceptAll(emptyInterceptor).get();
+        SeveralConstructors string = with(SeveralConstructors.class, "s", 4).interceptAll(emptyInterceptor).get();
+
+        Assert.assertEquals(nullString.getString(), null);
+        Assert.assertEquals(nullString.getNumber(), 3);
+        Assert.assertEquals(string.getNumber(), 4);
+    }
+
+    @Test(expectedExceptions = ProxyException.class)
+    public void constructorArgumentNullToPrimitiveTest() throws Exception {
+        with(SeveralConstructors.class, "s", null).interceptAll(emptyInterceptor).get();
+    }
+
+    @Test(expectedExceptions = ProxyException.class)
+    public void constructorWithTooManyArgumentsTest() throws Exception {
+        with(SeveralConstructors.class, "s", 1, 2).interceptAll(emptyInterceptor).get();
+    }
+
     Interceptor size10Interceptor = new Interceptor() {
 
         @Override
@@ -201,6 +240,59 @@ public class ProxyFluentTest {
         assertEquals(list.size(), 10);
     }
 
+    @Test
+    public void delegateAddsTheInterfacesOfTheDelegates() throws Exception {
+        List<String> list = with(new ArrayList<String>()).delegate(new Size10()).delegate(new Supplied()).get();
+        assertEquals(list.size(), 10);
+        assertEquals(((Supplier<?>) list).get(), "supplied");
+    }
+
+    @Test
+    public void delegateAddsTheInterfacesOfTheDelegatesToClassProxies() throws Exception {
+        Size10 size10 = with(Size10.class).delegate(new Supplied()).get();
+        assertEquals(size10.size(), 10);
+        assertEquals(((Supplier<?>) size10).get(), "supplied");
+    }
+
+    @Test
+    public void proxyIsCreatedOnceWithAllInterceptors() throws Exception {
+        ProxyFluent<List<String>> fluent = with((List<String>) new ArrayList<String>()).interceptAll(size10Interceptor)
+                .interceptAll(sizeTimesTwoInterceptor);
+        List<String> list = fluent.get();
+
+        assertSame(fluent.get(), list);
+        assertEquals(Proxy.getProxyInterface(list).getInterceptorList().size(), 3);
+        assertSame(Proxy.getProxyInterface(list).getInterceptorList().getFirst(), sizeTimesTwoInterceptor);
+        assertEquals(list.size(), 20);
+    }
+
+    @Test
+    public void interceptorsAddedAfterGetAreAddedToTheProxy() throws Exception {
+        ProxyFluent<List<String>> fluent = with((List<String>) new ArrayList<String>()).interceptAll(size10Interceptor);
+        List<String> list = fluent.get();
+        fluent.interceptAll(sizeTimesTwoInterceptor);
+
+        assertSame(fluent.get(), list);
+        assertEquals(list.size(), 20);
+    }
+
+    @Test
+    public void interceptorsAreAddedToAnExistingProxy() throws Exception {
+        List<String> proxy = with(new ArrayList<String>()).interceptAll(size10Interceptor).get();
+        List<String> list = with(proxy).interceptAll(sizeTimesTwoInterceptor).get();
+
+        assertSame(list, proxy);
+        assertEquals(list.size(), 20);
+    }
+
+    public static class Supplied implements Supplier<String> {
+
+        @Override
+        public String get() {
+            return "supplied";
+        }
+    }
+
     @Test
     public void interfaceInterception() throws Exception {
         List<String> list = with(List.class).interceptAll(size10Interceptor).get();
@@ -0,0 +1,123 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.testng.annotations.Test;
+
+/**
+ * Memory footprint of proxies of many objects, measured with JOL. Proxies with a shared chain should only cost the
+ * proxy object and its method handler that refers to the wrapped object.
+ */
+public class ProxyFootprintTest {
+
+    private static final int PROXIES = 100;
+    private static final Interceptor PASS_THROUGH = Invocation::invoke;
+
+    static {
+        // unsafe can't get the field offsets of hidden classes, like the proxy classes of ProxyBackend.LOOKUP.
+        System.setProperty("jol.magicFieldOffset", "true");
+    }
+
+    private final Service[] targets = new Service[PROXIES];
+
+    public ProxyFootprintTest() {
+        for (int i = 0; i < PROXIES; i++) {
+            targets[i] = new ServiceImpl(i);
+        }
+    }
+
+    @Test
+    public void blueprintProxiesShareTheirChain() throws Exception {
+        ProxyBlueprint<Service> blueprint = Proxy.with(Service.class).interceptAll(PASS_THROUGH).blueprint();
+
+        Footprint shared = footprint(blueprint::wrap);
+        Footprint own = footprint(target -> Proxy.with(target).interceptAll(PASS_THROUGH).get());
+
+        assertEquals(shared.objects, 2); // the proxy and its method handler.
+        assertTrue(shared.bytes < own.bytes, shared + " is not less than " + own);
+    }
+
+    @Test
+    public void interceptAllProxiesShareTheirChain() throws Exception {
+        Object[] proxies = Proxy.interceptAll(Arrays.asList(targets), PASS_THROUGH).toArray();
+
+        assertEquals(footprint(proxies).objects, 2);
+    }
+
+    private Footprint footprint(Function<Service, Object> proxyCreator) {
+        Object[] proxies = new Object[PROXIES];
+        for (int i = 0; i < PROXIES; i++) {
+            proxies[i] = proxyCreator.apply(targets[i]);
+        }
+        return footprint(proxies);
+    }
+
+    // the footprint of one proxy, without its target and what it shares with the other proxies.
+    private Footprint footprint(Object[] proxies) {
+        assertEquals(((Service) proxies[1]).name(), "service 1");
+        GraphLayout perProxy = GraphLayout.parseInstance(proxies).subtract(GraphLayout.parseInstance(proxies[0]))
+                .subtract(GraphLayout.parseInstance((Object[]) targets));
+        return new Footprint(perProxy.totalCount() / (PROXIES - 1), perProxy.totalSize() / (PROXIES - 1));
+    }
+
+    private static final class Footprint {
+
+        final long objects;
+        final long bytes;
+
+        Footprint(long objects, long bytes) {
+            this.objects = objects;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String toString() {
+            return objects + " objects, " + bytes + " bytes per proxy";
+        }
+    }
+
+    public interface Service {
+
+        String name();
+    }
+
+    public static class ServiceImpl implements Service {
+
+        private final int id;
+
+        public ServiceImpl(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String name() {
+            return "service " + id;
+        }
+    }
+}
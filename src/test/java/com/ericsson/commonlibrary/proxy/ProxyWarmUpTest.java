@@ -0,0 +1,122 @@
+/*
+Copyright (c) 2018 Ericsson
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE. SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package com.ericsson.commonlibrary.proxy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+public class ProxyWarmUpTest {
+
+    @Test
+    public void prewarmedProxyClassesAreUsedByTheFirstProxies() throws Exception {
+        Map<Class<?>, Duration> timings = Proxy.prewarm(Prewarmed.class, PrewarmedInterface.class);
+
+        assertEquals(Arrays.asList(timings.keySet().toArray()),
+                Arrays.asList(Prewarmed.class, PrewarmedInterface.class));
+        assertFalse(timings.values().stream().anyMatch(Duration::isNegative));
+
+        long misses = ProxyClassCache.missCount();
+        Prewarmed prewarmed = Proxy.with(Prewarmed.class).interceptAll(Invocation::invoke).get();
+        Prewarmed delegating = Proxy.with(new Prewarmed()).get();
+        PrewarmedInterface intercepted = Proxy.with(PrewarmedInterface.class).interceptAll(invocation -> "intercepted")
+                .get();
+        assertEquals(ProxyClassCache.missCount(), misses);
+
+        assertEquals(prewarmed.value(), "value");
+        assertEquals(prewarmed.protectedValue(), "protected");
+        assertEquals(delegating.value(), "value");
+        assertEquals(intercepted.value(), "intercepted");
+    }
+
+    @Test
+    public void methodsNamedLikeJavassistProceedMethodsAreNotMixedUp() throws Exception {
+        Proxy.prewarm(Prewarmed.class);
+
+        Prewarmed prewarmed = Proxy.with(Prewarmed.class).get();
+        assertEquals(prewarmed.value(), "value");
+        assertEquals(prewarmed._d0value(), "_d0value");
+    }
+
+    @Test
+    public void prewarmAsyncReportsAllTypesInOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Map<Class<?>, Duration> timings = Proxy
+                    .prewarmAsync(executor, true, PrewarmedInterface.class, Prewarmed.class).get(1, TimeUnit.MINUTES);
+
+            assertEquals(Arrays.asList(timings.keySet().toArray()),
+                    Arrays.asList(PrewarmedInterface.class, Prewarmed.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = ProxyException.class)
+    public void prewarmOfFinalClassFails() throws Exception {
+        Proxy.prewarm(NotProxyable.class);
+    }
+
+    @Test
+    public void prewarmAsyncOfFinalClassCompletesExceptionally() throws Exception {
+        try {
+            Proxy.prewarmAsync(Runnable::run, Prewarmed.class, NotProxyable.class).join();
+            fail("expected the prewarm to fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ProxyException, e.getCause().toString());
+        }
+    }
+
+    public interface PrewarmedInterface {
+
+        String value();
+    }
+
+    public static class Prewarmed {
+
+        public String value() {
+            return "value";
+        }
+
+        public String _d0value() { // NOSONAR named like the methods javassist generates
+            return "_d0value";
+        }
+
+        protected String protectedValue() {
+            return "protected";
+        }
+    }
+
+    public static final class NotProxyable {
+    }
+}
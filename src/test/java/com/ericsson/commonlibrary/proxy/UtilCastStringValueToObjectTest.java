@@ -281,7 +281,7 @@ public class UtilCastStringValueToObjectTest {
     @Test
     public void castStringValueToObjectIntegerInvocationTest() throws Exception {
         Method method = this.getClass().getDeclaredMethod("listVoid", null);
-        Invocation invocation = new Invocation(this, method, method, null, null);
+        Invocation invocation = new Invocation(this, new MethodDispatch(method), method, null, null);
         assertEquals(Util.castStringValueToObject("22", Integer.class, invocation), (Integer) 22);
     }
 